@@ -0,0 +1,110 @@
+package it.aman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import it.aman.benchmarks.Throughput;
+
+/**
+ * Counting throughput of {@link App#count} and {@link ParallelCounter} over generated text files per size and content.
+ * Lives in {@code it.aman} to reach the package-private counting method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CcwcBenchmark {
+
+    public enum Text {
+        /**
+         * English-like ASCII words.
+         */
+        ASCII,
+        /**
+         * Mixed Latin, Cyrillic and CJK words encoded as UTF-8.
+         */
+        UTF_8
+    }
+
+    private static final String[] ASCII_WORDS = {"the", "art", "of", "war", "general", "army", "victory", "strategy"};
+    private static final String[] UTF_8_WORDS = {"война", "искусство", "兵法", "孫子", "général", "armée", "勝利", "strategy"};
+
+    @Param({"ASCII", "UTF_8"})
+    public Text text;
+
+    @Param({"1048576", "16777216"})
+    public int size;
+
+    private Path file;
+    private App app;
+    private ForkJoinPool pool;
+    private ParallelCounter parallelCounter;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("ccwc-benchmark", ".txt");
+        String[] words = text == Text.ASCII ? ASCII_WORDS : UTF_8_WORDS;
+        Random random = new Random(size);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            while (written < size) {
+                int wordsOnLine = random.nextInt(16);
+                for (int i = 0; i < wordsOnLine; i++) {
+                    String word = words[random.nextInt(words.length)];
+                    writer.write(word);
+                    writer.write(' ');
+                    written += word.getBytes(StandardCharsets.UTF_8).length + 1;
+                }
+                writer.write('\n');
+                written++;
+            }
+        }
+        app = new App(new HashMap<String, Object>());
+        pool = new ForkJoinPool();
+        parallelCounter = new ParallelCounter(pool, 1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void count(Throughput throughput, Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            blackhole.consume(app.count(in));
+        }
+        throughput.processed(size);
+    }
+
+    @Benchmark
+    public void countParallel(Throughput throughput, Blackhole blackhole) throws IOException {
+        blackhole.consume(parallelCounter.count(file).words());
+        throughput.processed(size);
+    }
+}
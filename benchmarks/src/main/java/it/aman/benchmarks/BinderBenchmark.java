@@ -0,0 +1,93 @@
+package it.aman.benchmarks;
+
+import it.aman.jsonparser.JsonBinder;
+import it.aman.jsonparser.JsonValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning an array of records into objects: bound directly by {@link JsonBinder} versus read from a {@link JsonValue}
+ * tree by hand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinderBenchmark {
+
+    public static class Record {
+        public long id;
+        public String name;
+        public double price;
+        public boolean active;
+        public List<String> tags;
+    }
+
+    public static class Records {
+        public Record[] records;
+    }
+
+    @Param({"1000"})
+    public int records;
+
+    private final JsonBinder binder = new JsonBinder();
+    private String document;
+    private long bytes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"records\": [");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\": ").append(i).append(", \"name\": \"record ").append(i)
+                    .append("\", \"price\": ").append(i * 1.25).append(", \"active\": ").append(i % 3 == 0)
+                    .append(", \"tags\": [\"a\", \"b\"], \"unused\": {\"x\": [1, 2, 3]}}");
+        }
+        document = json.append("]}").toString();
+        bytes = document.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public Records bind(Throughput throughput) throws ParseException {
+        throughput.processed(bytes);
+        return binder.read(document, Records.class);
+    }
+
+    @Benchmark
+    public Records tree(Throughput throughput) throws ParseException {
+        throughput.processed(bytes);
+        JsonValue.JsonArray array = JsonValue.parse(document).asObject().get("records").asArray();
+        Records result = new Records();
+        result.records = new Record[array.size()];
+        for (int i = 0; i < array.size(); i++) {
+            JsonValue.JsonObject object = array.get(i).asObject();
+            Record record = new Record();
+            record.id = object.get("id").asNumber().longValue();
+            record.name = object.get("name").asString();
+            record.price = object.get("price").asNumber().doubleValue();
+            record.active = object.get("active").asBoolean();
+            JsonValue.JsonArray tags = object.get("tags").asArray();
+            record.tags = new ArrayList<>(tags.size());
+            for (int t = 0; t < tags.size(); t++) record.tags.add(tags.get(t).asString());
+            result.records[i] = record;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package it.aman.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates JSON documents of a given shape and approximate size.
+ */
+public final class Documents {
+
+    public enum Shape {
+        /**
+         * An array of deeply nested objects and arrays.
+         */
+        DEEP,
+        /**
+         * One object with many members of mixed types.
+         */
+        WIDE,
+        /**
+         * An array of integers and decimals.
+         */
+        NUMBERS,
+        /**
+         * An array of strings, some with escapes.
+         */
+        STRINGS
+    }
+
+    private static final int NESTING = 64;
+
+    public static String generate(Shape shape, int size) {
+        Random random = new Random(size);
+        StringBuilder json = new StringBuilder(size + 256);
+        json.append(shape == Shape.WIDE ? '{' : '[');
+        int i = 0;
+        while (json.length() < size) {
+            if (i > 0) json.append(',');
+            switch (shape) {
+                case DEEP:
+                    nested(json, random);
+                    break;
+                case WIDE:
+                    json.append("\"field").append(i).append("\":");
+                    scalar(json, random, i);
+                    break;
+                case NUMBERS:
+                    if (random.nextBoolean()) json.append(random.nextInt());
+                    else json.append(random.nextDouble() * 1e6);
+                    break;
+                default:
+                    json.append("\"value ").append(Long.toHexString(random.nextLong()));
+                    if (i % 8 == 0) json.append("\\n\\\"quoted\\\"");
+                    json.append('"');
+            }
+            i++;
+        }
+        return json.append(shape == Shape.WIDE ? '}' : ']').toString();
+    }
+
+    private static void nested(StringBuilder json, Random random) {
+        for (int depth = 0; depth < NESTING; depth++) {
+            json.append(depth % 2 == 0 ? "{\"level\":" : "[");
+        }
+        json.append(random.nextInt(100));
+        for (int depth = NESTING - 1; depth >= 0; depth--) {
+            json.append(depth % 2 == 0 ? '}' : ']');
+        }
+    }
+
+    private static void scalar(StringBuilder json, Random random, int i) {
+        switch (i % 4) {
+            case 0:
+                json.append(random.nextInt());
+                break;
+            case 1:
+                json.append('"').append(Long.toHexString(random.nextLong())).append('"');
+                break;
+            case 2:
+                json.append(random.nextBoolean());
+                break;
+            default:
+                json.append("null");
+        }
+    }
+
+    private Documents() {
+        //
+    }
+}
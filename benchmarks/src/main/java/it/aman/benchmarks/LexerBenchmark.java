@@ -0,0 +1,66 @@
+package it.aman.benchmarks;
+
+import it.aman.jsonparser.Lexer;
+import it.aman.jsonparser.LexerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation throughput of {@link Lexer#parseArray()} and {@link Lexer#parseObject()} per document shape and size,
+ * with a new lexer per document and with one reused through a {@link LexerFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"DEEP", "WIDE", "NUMBERS", "STRINGS"})
+    public Documents.Shape shape;
+
+    @Param({"16384", "1048576"})
+    public int size;
+
+    private String document;
+    private long bytes;
+    private final LexerFactory lexers = new LexerFactory();
+
+    @Setup
+    public void setUp() {
+        document = Documents.generate(shape, size);
+        bytes = document.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public void parse(Throughput throughput, Blackhole blackhole) throws ParseException {
+        validate(new Lexer(document), throughput, blackhole);
+    }
+
+    @Benchmark
+    public void parseReused(Throughput throughput, Blackhole blackhole) throws ParseException {
+        validate(lexers.lexer(document), throughput, blackhole);
+    }
+
+    private void validate(Lexer lexer, Throughput throughput, Blackhole blackhole) throws ParseException {
+        if (shape == Documents.Shape.WIDE) lexer.parseObject();
+        else lexer.parseArray();
+        blackhole.consume(lexer.getTokens().size());
+        throughput.processed(bytes);
+    }
+}
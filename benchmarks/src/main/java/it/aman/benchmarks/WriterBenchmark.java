@@ -0,0 +1,117 @@
+package it.aman.benchmarks;
+
+import it.aman.jsonparser.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing an array of records to UTF-8: with a reused {@link JsonWriter} and pre-encoded names versus building
+ * a {@link String} and encoding it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    private static final JsonWriter.Name ID = JsonWriter.Name.of("id");
+    private static final JsonWriter.Name NAME = JsonWriter.Name.of("name");
+    private static final JsonWriter.Name PRICE = JsonWriter.Name.of("price");
+    private static final JsonWriter.Name ACTIVE = JsonWriter.Name.of("active");
+    private static final JsonWriter.Name TAGS = JsonWriter.Name.of("tags");
+
+    @Param({"1000"})
+    public int records;
+
+    private BinderBenchmark.Record[] data;
+    private final JsonWriter writer = new JsonWriter();
+    private long bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = new BinderBenchmark.Record[records];
+        for (int i = 0; i < records; i++) {
+            BinderBenchmark.Record record = new BinderBenchmark.Record();
+            record.id = i;
+            record.name = "record \"" + i + "\" – é";
+            record.price = i * 1.25 + 0.1;
+            record.active = i % 3 == 0;
+            record.tags = Arrays.asList("a", "b\n");
+            data[i] = record;
+        }
+        bytes = writer(data).size();
+    }
+
+    @Benchmark
+    public void writer(Throughput throughput, Blackhole blackhole) throws IOException {
+        blackhole.consume(writer(data).byteBuffer());
+        throughput.processed(bytes);
+    }
+
+    @Benchmark
+    public byte[] stringBuilder(Throughput throughput) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < data.length; i++) {
+            BinderBenchmark.Record record = data[i];
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(record.id).append(",\"name\":");
+            quote(json, record.name);
+            json.append(",\"price\":").append(record.price).append(",\"active\":").append(record.active)
+                    .append(",\"tags\":[");
+            for (int t = 0; t < record.tags.size(); t++) {
+                if (t > 0) json.append(',');
+                quote(json, record.tags.get(t));
+            }
+            json.append("]}");
+        }
+        throughput.processed(bytes);
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private JsonWriter writer(BinderBenchmark.Record[] records) throws IOException {
+        writer.reset().beginArray();
+        for (BinderBenchmark.Record record : records) {
+            writer.beginObject()
+                    .name(ID).value(record.id)
+                    .name(NAME).value(record.name)
+                    .name(PRICE).value(record.price)
+                    .name(ACTIVE).value(record.active)
+                    .name(TAGS).beginArray();
+            for (String tag : record.tags) writer.value(tag);
+            writer.endArray().endObject();
+        }
+        return writer.endArray();
+    }
+
+    private static void quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
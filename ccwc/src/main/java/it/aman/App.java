@@ -1,20 +1,34 @@
 package it.aman;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringReader;
+import java.io.PushbackInputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.StringTokenizer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class App {
 
@@ -23,22 +37,50 @@ public class App {
     private boolean bytes;
     private final boolean chars;
     private final boolean maxLineLength;
+    /**
+     * Threads counting each file, 0 to read files sequentially.
+     */
+    private final int parallelism;
 
     List<String> fileNames;
 
     /**
      * --files0-from=F
      * read input from the files specified by NUL-terminated names in file F; If F is - then read names from standard input
-     * src/main/resources/test.txt
      */
+    private final String files0From;
+    /**
+     * Where counts are cached between runs, {@code null} when caching is off.
+     */
+    private final Path cacheLocation;
+    /**
+     * Seconds between reports in follow mode, 0 when not following.
+     */
+    private final double followInterval;
+    /**
+     * Extra counters selected on the command line, used as templates for the counters of each file.
+     */
+    private final Counter[] counters;
 
+    /**
+     * Files counted ahead of the one being printed; bounds open files and memory when thousands of files are given.
+     */
+    private static final int WINDOW = 128;
+    private static final int MAX_THREADS = 64;
+    /**
+     * Shortest --follow interval in seconds; anything shorter would only spin printing reports.
+     */
+    static final double MIN_FOLLOW_INTERVAL = 0.001;
 
-    private String currentFile = "";
-    List<Result> results = new ArrayList<>();
+    private final byte[] buffer = new byte[CountEngine.BUFFER_SIZE];
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+    private boolean failed;
 
     public static void main(String[] args) {
         ParseArgs parseArgs = new ParseArgs(args);
-        new App(parseArgs.parse()).run();
+        App app = new App(parseArgs.parse());
+        app.run();
+        if (app.failed) System.exit(1);
     }
 
 
@@ -53,17 +95,26 @@ public class App {
         this.bytes = options.get("bytes") != null;
         this.chars = options.get("chars") != null;
         this.maxLineLength = options.get("max-line-length") != null;
+        this.parallelism = parallelism((CommandOption) options.get("parallel"));
         this.fileNames = options.get("files") != null ? (List<String>) options.get("files") : new ArrayList<>() ;
+        this.files0From = options.get("files0-from") != null ? ((CommandOption) options.get("files0-from")).value : null;
+        this.cacheLocation = cacheLocation((CommandOption) options.get("cache"));
+        this.followInterval = followInterval((CommandOption) options.get("follow"));
+        this.counters = counters(options);
 
     }
 
     public void run() {
         applyDefaultOptions();
         try {
-            if (fileNames != null && !fileNames.isEmpty()) {
-                readFile();
+            if (followInterval > 0) {
+                follow();
+            } else if (files0From != null) {
+                readFiles0From();
+            } else if (fileNames != null && !fileNames.isEmpty()) {
+                readFile(fileNames);
             } else {
-                readStdIn(); // TODO process this
+                readStdIn();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -81,69 +132,256 @@ public class App {
         }
     }
 
+    /**
+     * Counts standard input as a stream through the same reused buffer as files, so memory stays constant no matter
+     * how much is piped in.
+     */
     private void readStdIn() {
-        try (Scanner scanner = new Scanner(System.in);
-             BufferedReader reader = new BufferedReader(new StringReader(scanner.nextLine()))) {
-            count(reader);
-        } catch (Exception e) {
+        Result result = count(System.in);
+        try {
+            printRow(result, System.out);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        printResult(System.out);
     }
 
-    private void readFile() throws IOException {
-        for (String file : fileNames) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(currentFile = file))) {
-                count(reader);
-            } catch (FileNotFoundException e) {
-                System.err.printf("File [ %s ] not found.%n", file);
-                throw new RuntimeException(e);
+    private static int parallelism(CommandOption option) {
+        if (option == null) return 0;
+        return option.value != null ? Integer.parseInt(option.value) : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static Path cacheLocation(CommandOption option) {
+        if (option == null) return null;
+        return option.value != null ? Paths.get(option.value) : ResultCache.defaultLocation();
+    }
+
+    private static Counter[] counters(Map<String, Object> options) {
+        List<Counter> selected = new ArrayList<>();
+        CommandOption regex = (CommandOption) options.get("count-regex");
+        if (regex != null) selected.add(new RegexCounter(Pattern.compile(regex.value)));
+        CommandOption prefix = (CommandOption) options.get("count-prefix");
+        if (prefix != null) selected.add(new PrefixCounter(prefix.value));
+        if (options.get("histogram") != null) selected.add(new ByteHistogram());
+        return selected.toArray(new Counter[0]);
+    }
+
+    /**
+     * @return an engine counting what was selected on the command line
+     */
+    private CountEngine newEngine() {
+        Counter[] fresh = new Counter[counters.length];
+        for (int i = 0; i < counters.length; i++) fresh[i] = counters[i].newCounter();
+        return new CountEngine(maxLineLength, fresh);
+    }
+
+    private static double followInterval(CommandOption option) {
+        if (option == null) return 0;
+        return option.value != null ? Double.parseDouble(option.value) : 1;
+    }
+
+    /**
+     * Keeps counting the given files as they grow and prints their counts and rates every {@link #followInterval}
+     * seconds, until interrupted.
+     */
+    private void follow() throws IOException, InterruptedException {
+        if (fileNames == null || fileNames.isEmpty()) {
+            System.err.printf("--follow needs at least one file.%n");
+            failed = true;
+            return;
+        }
+        long interval = (long) (followInterval * 1_000_000_000L);
+        OutputStream out = new BufferedOutputStream(System.out);
+        try (Follower follower = new Follower(fileNames, newEngine())) {
+            long last = System.nanoTime();
+            long deadline = last;
+            while (!Thread.currentThread().isInterrupted()) {
+                deadline += interval;
+                follower.awaitUntil(deadline);
+                long now = System.nanoTime();
+                double seconds = (now - last) / 1e9;
+                last = now;
+                StringBuilder report = new StringBuilder();
+                for (Follower.Tracked tracked : follower.files()) {
+                    Result r = tracked.result();
+                    formatCounts(r, report);
+                    report.append(String.format(Locale.ROOT, "%.1f lines/s %.1f bytes/s ",
+                            tracked.takeLines() / seconds, tracked.takeBytes() / seconds));
+                    report.append(r.file).append('\n');
+                }
+                report.append('\n');
+                out.write(report.toString().getBytes());
+                out.flush();
             }
         }
-        printResult(System.out);
     }
 
-    private void count(BufferedReader reader) {
+    private void readFiles0From() throws IOException {
+        if (fileNames != null && !fileNames.isEmpty()) {
+            System.err.printf("File operands cannot be combined with --files0-from.%n");
+            failed = true;
+            return;
+        }
+        InputStream in;
+        try {
+            in = "-".equals(files0From) ? System.in : new FileInputStream(files0From);
+        } catch (FileNotFoundException e) {
+            System.err.printf("File [ %s ] not found.%n", files0From);
+            failed = true;
+            return;
+        }
+        try (NulSeparatedNames names = new NulSeparatedNames(in)) {
+            readFile(() -> names);
+        }
+    }
+
+    /**
+     * Counts the files in {@code names}, which is iterated only once and as counting progresses.
+     */
+    private void readFile(Iterable<String> names) throws IOException {
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        ParallelCounter parallelCounter = pool != null ? new ParallelCounter(pool) : null;
+        GzipCounter gzipCounter = new GzipCounter(pool != null ? pool : ForkJoinPool.commonPool());
+        // extra counters keep no state that could be cached
+        ResultCache cache = cacheLocation != null && counters.length == 0 ? ResultCache.load(cacheLocation) : null;
+        ExecutorService executor = newExecutor();
+        OutputStream out = new BufferedOutputStream(System.out);
         try {
-            long lineCount = 0, wordCount = 0, byteCount = 0, maxLineLength = 0, currentLineLength = 0, chars = 0;
-            String current;
-            while ((current = reader.readLine()) != null) {
-                lineCount++;
-                wordCount += (currentLineLength = countWords(current));
-                byteCount += current.getBytes().length;
-                chars += current.length();
-
-                if(currentLineLength > maxLineLength) maxLineLength = currentLineLength;
+            Deque<Pending> pending = new ArrayDeque<>();
+            Total total = new Total(newEngine().toResult("total").counters);
+            int files = 0;
+            for (String file : names) {
+                if (pending.size() == WINDOW) printNext(pending, total, out);
+                pending.add(new Pending(file, executor.submit(() -> countFile(file, parallelCounter, cache, gzipCounter))));
+                files++;
             }
-            results.add(new Result(lineCount, wordCount, byteCount, maxLineLength, chars, currentFile));
-        } catch (Exception e){
-            throw new RuntimeException(e);
+            while (!pending.isEmpty()) printNext(pending, total, out);
+            if (files > 1) printRow(total.toResult(), out);
+            out.flush();
+            if (cache != null) cache.save();
+        } finally {
+            executor.shutdown();
+            if (pool != null) pool.shutdown();
         }
     }
 
-    private void printResult(OutputStream os) {
+    /**
+     * Virtual threads when the JDK has them, a bounded platform pool otherwise. Either way at most {@link #WINDOW}
+     * files are in flight at once.
+     */
+    private static ExecutorService newExecutor() {
         try {
-            StringBuilder stringBuilder = new StringBuilder();
-            for (Result r : results) {
-                if (lines) stringBuilder.append(r.lineCount).append(" ");
-                if (words) stringBuilder.append(r.wordCount).append(" ");
-                if (bytes) stringBuilder.append(r.byteCount).append(" ");
-                if (chars) stringBuilder.append(r.chars).append(" ");
-                if (isNotBlank(currentFile)) stringBuilder.append(currentFile);
-
-                os.write(stringBuilder.toString().getBytes());
-                os.write('\n');
-                stringBuilder.setLength(0);
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.min(WINDOW, MAX_THREADS));
+        }
+    }
+
+    /**
+     * Waits for the oldest file still in flight, prints its row, so rows come out in argument order, and adds it to
+     * {@code total}. The result is not kept, so memory does not grow with the number of files.
+     */
+    private void printNext(Deque<Pending> pending, Total total, OutputStream out) throws IOException {
+        Pending next = pending.removeFirst();
+        if (!next.result.isDone()) out.flush();
+        try {
+            Result result = next.result.get();
+            total.add(result);
+            printRow(result, out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Counting interrupted", e);
+        } catch (ExecutionException e) {
+            out.flush();
+            failed = true;
+            Throwable cause = e.getCause();
+            if (cause instanceof FileNotFoundException || cause instanceof NoSuchFileException) {
+                System.err.printf("File [ %s ] not found.%n", next.file);
+            } else {
+                System.err.printf("File [ %s ] could not be read: %s%n", next.file, cause.getMessage());
             }
-            if (maxLineLength) os.write(("\nMax line length: " + getMaxLineLength()).getBytes());
+        }
+    }
 
-        } catch (Exception e) {
+    private Result countFile(String file, ParallelCounter parallelCounter, ResultCache cache, GzipCounter gzipCounter)
+            throws IOException {
+        Path path = Paths.get(file);
+        if (GzipCounter.isGzip(path)) {
+            // counts are of the decompressed content, which the cache cannot resume from compressed offsets
+            return gzipCounter.count(path, newEngine()).toResult(file);
+        }
+        CountEngine engine = cache != null
+                ? cache.count(path, maxLineLength, (p, start) -> countFile(p, start, parallelCounter))
+                : countFile(path, newEngine(), parallelCounter);
+        return engine.toResult(file);
+    }
+
+    /**
+     * Continues counting {@code file} from the state of {@code start}, at byte offset {@link CountEngine#bytes()}.
+     */
+    private CountEngine countFile(Path file, CountEngine start, ParallelCounter parallelCounter) throws IOException {
+        if (parallelCounter != null) return parallelCounter.count(file, start);
+        byte[] buffer = buffers.poll();
+        if (buffer == null) buffer = new byte[CountEngine.BUFFER_SIZE];
+        try (FileInputStream in = new FileInputStream(file.toFile())) {
+            if (start.bytes() > 0) in.getChannel().position(start.bytes());
+            CountEngine engine = start.copy();
+            engine.update(in, buffer);
+            return engine;
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Counts {@code in}, decompressing it first when it starts with the gzip magic bytes.
+     * @return the counts, with no file name
+     */
+    Result count(InputStream in) {
+        try {
+            CountEngine engine = newEngine();
+            int n = readStart(in, buffer);
+            if (GzipCounter.isMagic(buffer, 0, n)) {
+                PushbackInputStream whole = new PushbackInputStream(in, n);
+                whole.unread(buffer, 0, n);
+                engine = new GzipCounter(ForkJoinPool.commonPool()).countStream(whole, engine);
+            } else {
+                engine.update(buffer, 0, n);
+                engine.update(in, buffer);
+            }
+            return engine.toResult("");
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private long countWords(String input) {
-        return new StringTokenizer(input).countTokens();
+    /**
+     * Reads at least the two bytes of the gzip magic into {@code buffer}, unless the input is shorter, so a pipe
+     * delivering a single byte first is still recognised.
+     */
+    private static int readStart(InputStream in, byte[] buffer) throws IOException {
+        int length = 0;
+        int n;
+        while (length < 2 && (n = in.read(buffer, length, buffer.length - length)) > 0) {
+            length += n;
+        }
+        return length;
+    }
+
+    private void printRow(Result r, OutputStream os) throws IOException {
+        StringBuilder stringBuilder = new StringBuilder();
+        formatCounts(r, stringBuilder);
+        if (isNotBlank(r.file)) stringBuilder.append(r.file);
+        stringBuilder.append('\n');
+        os.write(stringBuilder.toString().getBytes());
+    }
+
+    private void formatCounts(Result r, StringBuilder stringBuilder) {
+        if (lines) stringBuilder.append(r.lineCount).append(" ");
+        if (words) stringBuilder.append(r.wordCount).append(" ");
+        if (bytes) stringBuilder.append(r.byteCount).append(" ");
+        if (chars) stringBuilder.append(r.chars).append(" ");
+        if (maxLineLength) stringBuilder.append(r.maxLineLength).append(" ");
+        for (Counter counter : r.counters) stringBuilder.append(counter.value()).append(" ");
     }
 
     public static boolean isBlank(final CharSequence cs) {
@@ -165,15 +403,6 @@ public class App {
         return !isBlank(cs);
     }
 
-    private long getMaxLineLength() {
-       if(results.isEmpty()) return 0;
-       long max = 0;
-       for (Result r : results) {
-           if (r.maxLineLength > max) max = r.maxLineLength;
-       }
-       return max;
-    }
-
     private static void printHelp() {
         System.out.println("Usage: java ccwc [-chlLmw] [<fileNames>...]");
         System.out.println("Options:");
@@ -181,8 +410,16 @@ public class App {
         System.out.println("  -l, --lines             Print newline count");
         System.out.println("  -m, --chars             Print char count");
         System.out.println("  -w, --words             Print word count");
-        System.out.println("  -L, --max-line-length   Max line length");
+        System.out.println("  -L, --max-line-length   Print the display width of the longest line");
+        System.out.println("      --parallel[=N]      Count each file on N threads (default: all cores)");
+        System.out.println("      --files0-from=F     Read NUL-terminated file names from F, or from stdin if F is -");
+        System.out.println("      --cache[=FILE]      Reuse counts of unchanged files and count only appended bytes");
+        System.out.println("      --follow[=SECONDS]  Keep counting as files grow, print counts and rates every SECONDS (default: 1, at least 0.001)");
+        System.out.println("      --count-regex=REGEX Print the number of matches of REGEX, matched line by line");
+        System.out.println("      --count-prefix=TEXT Print the number of lines starting with TEXT");
+        System.out.println("      --histogram         Print how often each byte value occurs");
         System.out.println("  -h, --help   Display this help and exit");
+        System.out.println("Gzip input is recognised by its magic bytes and its decompressed content is counted.");
     }
 
 
@@ -193,14 +430,66 @@ public class App {
         final long maxLineLength;
         final long chars;
         final String file;
+        /**
+         * Extra counters in command line order.
+         */
+        final Counter[] counters;
 
         public Result(long lineCount, long wordCount, long byteCount, long maxLineLength, long chars, String file) {
+            this(lineCount, wordCount, byteCount, maxLineLength, chars, file, new Counter[0]);
+        }
+
+        public Result(long lineCount, long wordCount, long byteCount, long maxLineLength, long chars, String file,
+                      Counter[] counters) {
             this.lineCount = lineCount;
             this.wordCount = wordCount;
             this.byteCount = byteCount;
             this.maxLineLength = maxLineLength;
             this.chars = chars;
             this.file = file;
+            this.counters = counters;
+        }
+    }
+
+    /**
+     * Running sums of the rows printed so far, for the total row.
+     */
+    private static class Total {
+        private long lineCount;
+        private long wordCount;
+        private long byteCount;
+        private long maxLineLength;
+        private long chars;
+        private final Counter[] counters;
+
+        Total(Counter[] counters) {
+            this.counters = counters;
+        }
+
+        void add(Result r) {
+            lineCount += r.lineCount;
+            wordCount += r.wordCount;
+            byteCount += r.byteCount;
+            chars += r.chars;
+            maxLineLength = Math.max(maxLineLength, r.maxLineLength);
+            for (int i = 0; i < counters.length; i++) counters[i].append(r.counters[i]);
+        }
+
+        Result toResult() {
+            return new Result(lineCount, wordCount, byteCount, maxLineLength, chars, "total", counters);
+        }
+    }
+
+    /**
+     * A file submitted for counting whose row has not been printed yet.
+     */
+    private static class Pending {
+        final String file;
+        final Future<Result> result;
+
+        Pending(String file, Future<Result> result) {
+            this.file = file;
+            this.result = result;
         }
     }
 
@@ -210,7 +499,14 @@ public class App {
         private final Map<String, Object> commandsAndFile = new HashMap<>();
 
         private static final List<String> SHORT_OPTIONS = Arrays.asList("l", "w", "c", "m", "L", "h");
-        private static final List<String> LONG_OPTIONS = Arrays.asList( "lines", "words", "bytes", "chars", "max-line-length", "help");
+        private static final List<String> LONG_OPTIONS = Arrays.asList( "lines", "words", "bytes", "chars", "max-line-length", "help", "parallel", "files0-from", "cache", "follow", "count-regex", "count-prefix", "histogram");
+        private static final List<String> VALUE_OPTIONS = Arrays.asList("parallel", "files0-from", "cache", "follow",
+                "count-regex", "count-prefix");
+        /**
+         * Options that cannot be given without a value.
+         */
+        private static final List<String> REQUIRED_VALUE_OPTIONS = Arrays.asList("files0-from", "count-regex",
+                "count-prefix");
 
         ParseArgs(String[] args) {
             if(args != null && args.length > 0) {
@@ -251,8 +547,11 @@ public class App {
         }
 
         private void handleLong(String s) {
-            if (LONG_OPTIONS.contains(s)) {
-                setIfNotNull(handleOption(s), t -> commandsAndFile.put(t.longForm, t));
+            int equals = s.indexOf('=');
+            String name = equals < 0 ? s : s.substring(0, equals);
+            String value = equals < 0 ? null : s.substring(equals + 1);
+            if (LONG_OPTIONS.contains(name) && isValidValue(name, value)) {
+                setIfNotNull(handleOption(name), t -> commandsAndFile.put(t.longForm, t.withValue(value)));
             } else {
                 commandsAndFile.put("help", new CommandOption("h", "help", "Print help."));
             }
@@ -268,6 +567,34 @@ public class App {
             }
         }
 
+        private static boolean isValidValue(String option, String value) {
+            if (value == null) return !REQUIRED_VALUE_OPTIONS.contains(option);
+            if (!VALUE_OPTIONS.contains(option) || value.isEmpty()) return false;
+            if ("count-regex".equals(option)) {
+                try {
+                    Pattern.compile(value);
+                    return true;
+                } catch (PatternSyntaxException e) {
+                    return false;
+                }
+            }
+            if ("parallel".equals(option)) {
+                for (int i = 0; i < value.length(); i++) {
+                    if (!Character.isDigit(value.charAt(i))) return false;
+                }
+                return value.length() < 6 && Integer.parseInt(value) > 0;
+            }
+            if ("follow".equals(option)) {
+                try {
+                    double seconds = Double.parseDouble(value);
+                    return seconds >= MIN_FOLLOW_INTERVAL && !Double.isInfinite(seconds);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         private <T> void setIfNotNull(T value, Consumer<T> consumer) {
             if(value == null) return;
             consumer.accept(value);
@@ -290,6 +617,20 @@ public class App {
                 case "max-line-length":
                 case "L":
                     return new CommandOption("L", "max-line-length", "Max line length");
+                case "parallel":
+                    return new CommandOption(null, "parallel", "Count each file on several threads");
+                case "files0-from":
+                    return new CommandOption(null, "files0-from", "Read NUL-terminated file names");
+                case "cache":
+                    return new CommandOption(null, "cache", "Cache counts between runs");
+                case "follow":
+                    return new CommandOption(null, "follow", "Keep counting as files grow");
+                case "count-regex":
+                    return new CommandOption(null, "count-regex", "Count regex matches");
+                case "count-prefix":
+                    return new CommandOption(null, "count-prefix", "Count lines with a prefix");
+                case "histogram":
+                    return new CommandOption(null, "histogram", "Count byte values");
                 default:
                     return new CommandOption("h", "help", "Print help.");
             }
@@ -301,11 +642,24 @@ public class App {
         final String shortForm;
         final String longForm;
         final String description;
+        /**
+         * Argument given as {@code --name=value}, {@code null} when absent.
+         */
+        final String value;
 
         public CommandOption(String shortForm, String longForm, String description) {
+            this(shortForm, longForm, description, null);
+        }
+
+        public CommandOption(String shortForm, String longForm, String description, String value) {
             this.shortForm = shortForm;
             this.longForm = longForm;
             this.description = description;
+            this.value = value;
+        }
+
+        CommandOption withValue(String value) {
+            return value == null ? this : new CommandOption(shortForm, longForm, description, value);
         }
     }
 }
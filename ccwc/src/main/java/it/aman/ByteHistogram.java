@@ -0,0 +1,51 @@
+package it.aman;
+
+/**
+ * Counts how often each byte value occurs. Printed as {@code {hex=count,...}} for the values that occur.
+ */
+final class ByteHistogram implements Counter {
+
+    private final long[] counts = new long[256];
+
+    @Override
+    public void update(byte[] buffer, int offset, int length) {
+        long[] counts = this.counts;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            counts[buffer[i] & 0xFF]++;
+        }
+    }
+
+    @Override
+    public void append(Counter next) {
+        long[] other = ((ByteHistogram) next).counts;
+        for (int b = 0; b < counts.length; b++) counts[b] += other[b];
+    }
+
+    @Override
+    public Counter copy() {
+        ByteHistogram copy = new ByteHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        return copy;
+    }
+
+    @Override
+    public Counter newCounter() {
+        return new ByteHistogram();
+    }
+
+    long count(int b) {
+        return counts[b & 0xFF];
+    }
+
+    @Override
+    public String value() {
+        StringBuilder builder = new StringBuilder("{");
+        for (int b = 0; b < counts.length; b++) {
+            if (counts[b] == 0) continue;
+            if (builder.length() > 1) builder.append(',');
+            if (b < 0x10) builder.append('0');
+            builder.append(Integer.toHexString(b)).append('=').append(counts[b]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,349 @@
+package it.aman;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts lines, words, bytes and characters of UTF-8 input in a single pass over raw bytes.
+ * <p>
+ * Every byte is classified through a 256-entry table, so there is no charset decoding and no per-line object:
+ * a line ends at every {@code '\n'}, a word starts at every non-whitespace byte that follows whitespace or the start
+ * of the input, and a character starts at every byte that is not a UTF-8 continuation byte ({@code 10xxxxxx}).
+ * Input can be fed in as many buffers as needed, the state carries over from one to the next.
+ * <p>
+ * With display width enabled the same loop also decodes code points to measure the longest line in terminal
+ * columns, like {@code wc -L}: tabs advance to the next multiple of 8, {@code '\r'} and {@code '\f'} return to
+ * column 0 and characters take their {@link DisplayWidth}. The decoder state carries over between buffers too.
+ * Without it, the loop skips all of that.
+ * <p>
+ * Separate parts of the same input can also be counted by separate engines and joined afterwards with
+ * {@link #append(CountEngine)}. Because characters are counted by their lead byte, a part may start or end in the
+ * middle of a multibyte character; only words and lines cut in two need fixing up when joining. With display width
+ * enabled, parts must start at the beginning of a line, since the width of a tab depends on the column it is in.
+ * <p>
+ * Extra {@link Counter}s selected on the command line receive every buffer after the built-in loop.
+ */
+final class CountEngine {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int NEWLINE = 1;
+    private static final int WORD = 2;
+    private static final int CHAR = 4;
+    private static final byte[] CLASSES = new byte[256];
+
+    private static final byte TAB = -1;
+    private static final byte LINE_BREAK = -2;
+    /**
+     * Columns taken by each ASCII byte, or {@link #TAB} or {@link #LINE_BREAK}.
+     */
+    private static final byte[] ASCII_WIDTH = new byte[128];
+    private static final int TAB_SIZE = 8;
+
+    static {
+        for (int b = 0; b < CLASSES.length; b++) {
+            int type = 0;
+            if (b == '\n') type |= NEWLINE;
+            if (!isWhitespace(b)) type |= WORD;
+            if ((b & 0xC0) != 0x80) type |= CHAR;
+            CLASSES[b] = (byte) type;
+        }
+        for (int b = 0; b < ASCII_WIDTH.length; b++) {
+            ASCII_WIDTH[b] = (byte) (b >= 0x20 && b < 0x7F ? 1 : 0);
+        }
+        ASCII_WIDTH['\t'] = TAB;
+        ASCII_WIDTH['\n'] = LINE_BREAK;
+        ASCII_WIDTH['\r'] = LINE_BREAK;
+        ASCII_WIDTH['\f'] = LINE_BREAK;
+    }
+
+    private static final Counter[] NO_COUNTERS = new Counter[0];
+
+    private final boolean displayWidth;
+    private final Counter[] counters;
+
+    private long lines;
+    private long words;
+    private long bytes;
+    private long chars;
+    private long maxLineLength;
+    /**
+     * Column of the current line.
+     */
+    private long lineLength;
+    /**
+     * Width of the input before its first line break, -1 until a line break has been seen.
+     */
+    private long firstLineLength = -1;
+    /**
+     * 1 when the last byte seen belongs to a word, 0 otherwise.
+     */
+    private int inWord;
+    private boolean startsInWord;
+    /**
+     * Bits decoded so far of a multibyte character, and how many continuation bytes it still needs.
+     */
+    private int codePoint;
+    private int pending;
+
+    CountEngine() {
+        this(false);
+    }
+
+    /**
+     * @param displayWidth whether to measure the longest line in display columns
+     */
+    CountEngine(boolean displayWidth) {
+        this(displayWidth, NO_COUNTERS);
+    }
+
+    /**
+     * @param counters extra counters fed with the same buffers, owned by this engine from now on
+     */
+    CountEngine(boolean displayWidth, Counter[] counters) {
+        this.displayWidth = displayWidth;
+        this.counters = counters;
+    }
+
+    /**
+     * Counts {@code length} bytes of {@code buffer} starting at {@code offset}.
+     */
+    void update(byte[] buffer, int offset, int length) {
+        if (bytes == 0 && length > 0) startsInWord = (CLASSES[buffer[offset] & 0xFF] & WORD) != 0;
+        if (displayWidth) {
+            updateWithWidth(buffer, offset, length);
+        } else {
+            updateCounts(buffer, offset, length);
+        }
+        for (Counter counter : counters) {
+            counter.update(buffer, offset, length);
+        }
+        bytes += length;
+    }
+
+    private void updateCounts(byte[] buffer, int offset, int length) {
+        long lines = this.lines, words = this.words, chars = this.chars;
+        int previous = inWord;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int type = CLASSES[buffer[i] & 0xFF];
+            int word = (type >> 1) & 1;
+            words += word & ~previous;
+            previous = word;
+            chars += type >> 2;
+            lines += type & NEWLINE;
+        }
+        this.lines = lines;
+        this.words = words;
+        this.chars = chars;
+        this.inWord = previous;
+    }
+
+    private void updateWithWidth(byte[] buffer, int offset, int length) {
+        long lines = this.lines, words = this.words, chars = this.chars;
+        long column = lineLength, maxLineLength = this.maxLineLength, firstLineLength = this.firstLineLength;
+        int previous = inWord, codePoint = this.codePoint, pending = this.pending;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int b = buffer[i] & 0xFF;
+            int type = CLASSES[b];
+            int word = (type >> 1) & 1;
+            words += word & ~previous;
+            previous = word;
+            chars += type >> 2;
+            lines += type & NEWLINE;
+            if (b < 0x80) {
+                pending = 0;
+                int width = ASCII_WIDTH[b];
+                if (width >= 0) {
+                    column += width;
+                } else if (width == TAB) {
+                    column += TAB_SIZE - (column % TAB_SIZE);
+                } else {
+                    if (firstLineLength < 0) firstLineLength = column;
+                    if (column > maxLineLength) maxLineLength = column;
+                    column = 0;
+                }
+            } else if (b < 0xC0) {
+                if (pending > 0) {
+                    codePoint = (codePoint << 6) | (b & 0x3F);
+                    if (--pending == 0) column += DisplayWidth.of(codePoint);
+                }
+            } else {
+                pending = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : 1;
+                codePoint = b & (0x7F >> (pending + 1));
+            }
+        }
+        this.lines = lines;
+        this.words = words;
+        this.chars = chars;
+        this.lineLength = column;
+        this.maxLineLength = maxLineLength;
+        this.firstLineLength = firstLineLength;
+        this.inWord = previous;
+        this.codePoint = codePoint;
+        this.pending = pending;
+    }
+
+    /**
+     * Counts everything left in {@code in}, reading through {@code buffer}.
+     */
+    void update(InputStream in, byte[] buffer) throws IOException {
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            update(buffer, 0, n);
+        }
+    }
+
+    /**
+     * Adds the counts of {@code next}, which counted the input immediately following the input counted by this engine.
+     */
+    void append(CountEngine next) {
+        if (next.bytes == 0) return;
+        if (bytes == 0) {
+            copy(next, this);
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = next.counters[i].copy();
+            }
+            return;
+        }
+        long joinedLine = lineLength + (next.firstLineLength < 0 ? next.lineLength : next.firstLineLength);
+        if (next.firstLineLength < 0) {
+            lineLength = joinedLine;
+        } else {
+            if (firstLineLength < 0) firstLineLength = joinedLine;
+            maxLineLength = Math.max(Math.max(maxLineLength, joinedLine), next.maxLineLength);
+            lineLength = next.lineLength;
+        }
+        words += next.words - (inWord == 1 && next.startsInWord ? 1 : 0);
+        lines += next.lines;
+        bytes += next.bytes;
+        chars += next.chars;
+        inWord = next.inWord;
+        codePoint = next.codePoint;
+        pending = next.pending;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i].append(next.counters[i]);
+        }
+    }
+
+    /**
+     * @return an engine in the same state, which continues counting independently of this one
+     */
+    CountEngine copy() {
+        Counter[] copies = new Counter[counters.length];
+        for (int i = 0; i < counters.length; i++) copies[i] = counters[i].copy();
+        CountEngine copy = new CountEngine(displayWidth, copies);
+        copy(this, copy);
+        return copy;
+    }
+
+    /**
+     * @return an engine with the same configuration, including fresh instances of the extra counters
+     */
+    CountEngine newEngine() {
+        Counter[] fresh = new Counter[counters.length];
+        for (int i = 0; i < counters.length; i++) fresh[i] = counters[i].newCounter();
+        return new CountEngine(displayWidth, fresh);
+    }
+
+    private static void copy(CountEngine from, CountEngine to) {
+        to.lines = from.lines;
+        to.words = from.words;
+        to.bytes = from.bytes;
+        to.chars = from.chars;
+        to.maxLineLength = from.maxLineLength;
+        to.lineLength = from.lineLength;
+        to.firstLineLength = from.firstLineLength;
+        to.inWord = from.inWord;
+        to.startsInWord = from.startsInWord;
+        to.codePoint = from.codePoint;
+        to.pending = from.pending;
+    }
+
+    /**
+     * Saves the complete state, so counting can later resume with {@link #readFrom(DataInput)} and more input.
+     * Engines with extra counters cannot be saved.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        if (counters.length > 0) {
+            throw new IllegalStateException("Counts with extra counters cannot be saved");
+        }
+        out.writeBoolean(displayWidth);
+        out.writeLong(lines);
+        out.writeLong(words);
+        out.writeLong(bytes);
+        out.writeLong(chars);
+        out.writeLong(maxLineLength);
+        out.writeLong(lineLength);
+        out.writeLong(firstLineLength);
+        out.writeBoolean(inWord == 1);
+        out.writeBoolean(startsInWord);
+        out.writeInt(codePoint);
+        out.writeByte(pending);
+    }
+
+    static CountEngine readFrom(DataInput in) throws IOException {
+        CountEngine engine = new CountEngine(in.readBoolean());
+        engine.lines = in.readLong();
+        engine.words = in.readLong();
+        engine.bytes = in.readLong();
+        engine.chars = in.readLong();
+        engine.maxLineLength = in.readLong();
+        engine.lineLength = in.readLong();
+        engine.firstLineLength = in.readLong();
+        engine.inWord = in.readBoolean() ? 1 : 0;
+        engine.startsInWord = in.readBoolean();
+        engine.codePoint = in.readInt();
+        engine.pending = in.readByte();
+        return engine;
+    }
+
+    long lines() {
+        return lines;
+    }
+
+    long words() {
+        return words;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    long chars() {
+        return chars;
+    }
+
+    boolean measuresDisplayWidth() {
+        return displayWidth;
+    }
+
+    /**
+     * @return whether parts counted separately may be joined with {@link #append(CountEngine)} even when they do not
+     * start at the beginning of a line
+     */
+    boolean canAppendAnywhere() {
+        return !displayWidth && counters.length == 0;
+    }
+
+    /**
+     * @return the width in display columns of the longest line, always 0 unless display width is enabled
+     */
+    long maxLineLength() {
+        return Math.max(maxLineLength, lineLength);
+    }
+
+    App.Result toResult(String file) {
+        Counter[] snapshot = new Counter[counters.length];
+        for (int i = 0; i < counters.length; i++) snapshot[i] = counters[i].copy();
+        return new App.Result(lines, words, bytes, maxLineLength(), chars, file, snapshot);
+    }
+
+    /**
+     * Same set as {@code isspace} in the C locale.
+     */
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
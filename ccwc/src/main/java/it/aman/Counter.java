@@ -0,0 +1,37 @@
+package it.aman;
+
+/**
+ * Extra count computed in the same pass as lines, words and bytes.
+ * <p>
+ * The {@link CountEngine} hands every buffer it reads to each selected counter in turn, so the dispatch happens once
+ * per buffer, never per byte, and each counter runs its own tight loop over data that is already in cache.
+ */
+interface Counter {
+
+    /**
+     * Counts {@code length} bytes of {@code buffer} starting at {@code offset}. State carries over to the next buffer.
+     */
+    void update(byte[] buffer, int offset, int length);
+
+    /**
+     * Adds the counts of {@code next}, a counter of the same kind that counted the input immediately following the
+     * input counted by this one, starting at the beginning of a line. Also used to add up the counts of several files
+     * for the total row.
+     */
+    void append(Counter next);
+
+    /**
+     * @return a counter in the same state, which continues counting independently of this one
+     */
+    Counter copy();
+
+    /**
+     * @return a counter with the same configuration that has not counted anything yet
+     */
+    Counter newCounter();
+
+    /**
+     * @return the count as printed in the result row
+     */
+    String value();
+}
@@ -0,0 +1,53 @@
+package it.aman;
+
+/**
+ * Terminal column width of code points, following {@code wcwidth}: 2 for East Asian wide and fullwidth characters,
+ * 0 for combining marks, format and control characters, 1 for everything else.
+ * <p>
+ * The Basic Multilingual Plane, which covers almost all text, is precomputed into a 64 KB table at class load, so the
+ * counting loop pays one array load per character. Supplementary code points are computed on the fly.
+ */
+final class DisplayWidth {
+
+    private static final int[][] WIDE_RANGES = {
+            {0x1100, 0x115F}, {0x231A, 0x231B}, {0x2329, 0x232A}, {0x2E80, 0x303E}, {0x3041, 0x33FF},
+            {0x3400, 0x4DBF}, {0x4E00, 0x9FFF}, {0xA000, 0xA4CF}, {0xAC00, 0xD7A3}, {0xF900, 0xFAFF},
+            {0xFE10, 0xFE19}, {0xFE30, 0xFE6F}, {0xFF00, 0xFF60}, {0xFFE0, 0xFFE6}, {0x1F300, 0x1F64F},
+            {0x1F900, 0x1F9FF}, {0x20000, 0x2FFFD}, {0x30000, 0x3FFFD}
+    };
+
+    private static final byte[] BMP = new byte[0x10000];
+
+    static {
+        for (int codePoint = 0; codePoint < BMP.length; codePoint++) {
+            BMP[codePoint] = (byte) compute(codePoint);
+        }
+    }
+
+    static int of(int codePoint) {
+        return codePoint < BMP.length ? BMP[codePoint] : compute(codePoint);
+    }
+
+    private static int compute(int codePoint) {
+        if (codePoint > Character.MAX_CODE_POINT) return 0;
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.FORMAT:
+            case Character.CONTROL:
+            case Character.SURROGATE:
+            case Character.UNASSIGNED:
+                return 0;
+            default:
+        }
+        if (codePoint >= 0x1160 && codePoint <= 0x11FF) return 0; // Hangul medial vowels and final consonants
+        for (int[] range : WIDE_RANGES) {
+            if (codePoint >= range[0] && codePoint <= range[1]) return 2;
+        }
+        return 1;
+    }
+
+    private DisplayWidth() {
+        //
+    }
+}
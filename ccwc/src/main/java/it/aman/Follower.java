@@ -0,0 +1,185 @@
+package it.aman;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps the counts of growing files current.
+ * <p>
+ * Every file keeps its {@link CountEngine} and the offset it has been read to, which is simply
+ * {@link CountEngine#bytes()}. The parent directories are registered with a {@link WatchService} and a change
+ * event for a file reads only the bytes appended since the last read. Rotation is detected on the same events: a file
+ * that got shorter (truncated), has a different file key (replaced, e.g. renamed away and created again) or whose
+ * bytes before the old end changed (truncated and rewritten past the old end between two events, checked with the
+ * same tail CRC as {@link ResultCache}) is counted again from its start. A file that disappears keeps its last counts
+ * until it is created again.
+ */
+final class Follower implements Closeable {
+
+    private final List<Tracked> files = new ArrayList<>();
+    private final Map<Path, List<Tracked>> byPath = new HashMap<>();
+    private final WatchService watcher;
+    private final ByteBuffer buffer = ByteBuffer.allocate(CountEngine.BUFFER_SIZE);
+
+    /**
+     * @param template engine every file is counted with a {@link CountEngine#newEngine() new copy} of
+     */
+    Follower(List<String> names, CountEngine template) throws IOException {
+        watcher = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (String name : names) {
+            Path path = Paths.get(name).toAbsolutePath().normalize();
+            Tracked tracked = new Tracked(name, path, template.newEngine());
+            files.add(tracked);
+            byPath.computeIfAbsent(path, p -> new ArrayList<>()).add(tracked);
+            Path directory = path.getParent();
+            if (directories.add(directory)) {
+                directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+        for (Tracked tracked : files) {
+            update(tracked);
+            tracked.takeLines();
+            tracked.takeBytes();
+        }
+    }
+
+    List<Tracked> files() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Reads what is appended to the followed files as change events arrive, until {@code deadline} as given by
+     * {@link System#nanoTime()}.
+     */
+    void awaitUntil(long deadline) throws IOException, InterruptedException {
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return;
+            WatchKey key = watcher.poll(remaining, TimeUnit.NANOSECONDS);
+            if (key == null) return;
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    for (Tracked tracked : files) update(tracked);
+                    continue;
+                }
+                List<Tracked> changed = byPath.get(directory.resolve((Path) event.context()));
+                if (changed == null) continue;
+                for (Tracked tracked : changed) update(tracked);
+            }
+            key.reset();
+        }
+    }
+
+    private void update(Tracked tracked) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(tracked.path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return; // rotated away, wait for the file to be created again
+        }
+        Object fileKey = attributes.fileKey();
+        boolean replaced = tracked.fileKey != null && !tracked.fileKey.equals(fileKey);
+        long end = tracked.engine.bytes();
+        if (replaced || attributes.size() < end
+                || attributes.size() > end && end > 0 && ResultCache.tailCrc(tracked.path, end) != tracked.tailCrc) {
+            tracked.restart();
+        }
+        tracked.fileKey = fileKey;
+        if (attributes.size() == tracked.engine.bytes()) return;
+
+        long lines = tracked.engine.lines(), bytes = tracked.engine.bytes();
+        try (FileChannel channel = FileChannel.open(tracked.path, StandardOpenOption.READ)) {
+            channel.position(bytes);
+            buffer.clear();
+            while (channel.read(buffer) > 0) {
+                tracked.engine.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        tracked.tailCrc = ResultCache.tailCrc(tracked.path, tracked.engine.bytes());
+        tracked.intervalLines += tracked.engine.lines() - lines;
+        tracked.intervalBytes += tracked.engine.bytes() - bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+    /**
+     * A followed file and its counts.
+     */
+    static final class Tracked {
+        final String name;
+        final Path path;
+        private Object fileKey;
+        /**
+         * {@link ResultCache#tailCrc(Path, long)} at the offset read to.
+         */
+        private long tailCrc;
+        private CountEngine engine;
+        private long intervalLines;
+        private long intervalBytes;
+
+        Tracked(String name, Path path, CountEngine engine) {
+            this.name = name;
+            this.path = path;
+            this.engine = engine;
+        }
+
+        private void restart() {
+            engine = engine.newEngine();
+        }
+
+        App.Result result() {
+            return engine.toResult(name);
+        }
+
+        /**
+         * @return the lines read since the previous call
+         */
+        long takeLines() {
+            long lines = intervalLines;
+            intervalLines = 0;
+            return lines;
+        }
+
+        /**
+         * @return the bytes read since the previous call
+         */
+        long takeBytes() {
+            long bytes = intervalBytes;
+            intervalBytes = 0;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package it.aman;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Counts the decompressed content of gzip input.
+ * <p>
+ * A gzip stream is decompressed on its own thread, which hands filled buffers to the counting thread through a
+ * bounded queue and gets them back once counted, so decompression and counting overlap and memory stays fixed. The
+ * members of a stream are inflated one after the other with one {@link Inflater}; unlike
+ * {@link java.util.zip.GZIPInputStream}, the next member is looked for whether or not the input reports bytes as
+ * available, so concatenated members on a pipe are all counted.
+ * <p>
+ * Files made of several gzip members ({@code pigz}, {@code bgzip}, concatenated {@code .gz} files) are split and
+ * decompressed in parallel. The offsets that look like a member header are cut into ranges of about
+ * {@link #RANGE_SIZE} compressed bytes, and a task on the {@link ForkJoinPool} inflates the members of one range in
+ * order with one {@link Inflater} and one set of buffers, trying each candidate as if a member started there unless it
+ * lies inside the member just inflated. Only members whose CRC and size match their trailer are accepted, and a few
+ * tasks at most are in flight. The accepted members are then chained from offset 0, each starting where the previous
+ * one ended, so a header-like byte sequence inside compressed data costs some wasted work but never a wrong count.
+ * When the chain breaks, or offset 0 is the only candidate, the rest of the file is decompressed sequentially. Joining members cut lines in arbitrary places, so this is only done for counts that
+ * {@link CountEngine#append(CountEngine)} can join anywhere: not with display width or extra counters.
+ */
+final class GzipCounter {
+
+    private static final int MAGIC_1 = 0x1F;
+    private static final int MAGIC_2 = 0x8B;
+    private static final int DEFLATE = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int RESERVED_FLAGS = 0xE0;
+    private static final int TRAILER_LENGTH = 8;
+    /**
+     * Buffers in flight between the decompressing and the counting thread.
+     */
+    private static final int QUEUE_DEPTH = 4;
+    /**
+     * Compressed bytes whose candidates make up one task.
+     */
+    static final int RANGE_SIZE = 1024 * 1024;
+    /**
+     * First read at a new offset, doubled on every further read up to the buffer size, so a small member does not
+     * cost a full buffer of reading.
+     */
+    private static final int FIRST_READ = 4096;
+
+    private final ForkJoinPool pool;
+
+    GzipCounter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return whether {@code file} starts with the gzip magic bytes
+     */
+    static boolean isGzip(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // read both bytes
+            }
+            return isMagic(magic.array(), 0, magic.position());
+        }
+    }
+
+    static boolean isMagic(byte[] bytes, int offset, int length) {
+        return length >= 2 && (bytes[offset] & 0xFF) == MAGIC_1 && (bytes[offset + 1] & 0xFF) == MAGIC_2;
+    }
+
+    /**
+     * Counts the decompressed content of {@code file} with {@link CountEngine#newEngine() a new copy} of
+     * {@code template}.
+     */
+    CountEngine count(Path file, CountEngine template) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (!template.canAppendAnywhere()) {
+                return countStream(Channels.newInputStream(channel), template.newEngine());
+            }
+            return countMembers(channel, template);
+        }
+    }
+
+    /**
+     * Decompresses {@code in} on a separate thread and counts it into {@code engine} on the calling thread.
+     */
+    CountEngine countStream(InputStream in, CountEngine engine) throws IOException {
+        BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(QUEUE_DEPTH + 1);
+        BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        for (int i = 0; i < QUEUE_DEPTH; i++) free.add(new byte[CountEngine.BUFFER_SIZE]);
+
+        Thread decompressor = new Thread(() -> decompress(in, free, filled), "ccwc-gunzip");
+        decompressor.setDaemon(true);
+        decompressor.start();
+        try {
+            while (true) {
+                Chunk chunk = filled.take();
+                if (chunk.error != null) throw chunk.error;
+                if (chunk.buffer == null) return engine;
+                engine.update(chunk.buffer, 0, chunk.length);
+                free.put(chunk.buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Decompression interrupted", e);
+        } finally {
+            decompressor.interrupt();
+        }
+    }
+
+    private static void decompress(InputStream in, BlockingQueue<byte[]> free, BlockingQueue<Chunk> filled) {
+        try {
+            Chunk last;
+            Inflater inflater = new Inflater(true);
+            try {
+                Input input = new StreamInput(in);
+                CRC32 crc = new CRC32();
+                byte[] buffer = free.take();
+                int length = 0;
+                if (!skipHeader(input)) throw new ZipException("Not in GZIP format");
+                do {
+                    long size = 0;
+                    int n;
+                    while ((n = inflate(input, inflater, buffer, length, buffer.length - length)) > 0) {
+                        crc.update(buffer, length, n);
+                        size += n;
+                        length += n;
+                        if (length == buffer.length) {
+                            filled.put(new Chunk(buffer, length, null));
+                            buffer = free.take();
+                            length = 0;
+                        }
+                    }
+                    if (!checkTrailer(input, crc, size)) throw new ZipException("Corrupt GZIP trailer");
+                    inflater.reset();
+                    crc.reset();
+                } while (nextMember(input));
+                if (length > 0) filled.put(new Chunk(buffer, length, null));
+                last = new Chunk(null, 0, null);
+            } catch (IOException e) {
+                last = new Chunk(null, 0, e);
+            } catch (DataFormatException e) {
+                last = new Chunk(null, 0, new ZipException(e.getMessage()));
+            } finally {
+                inflater.end();
+            }
+            filled.put(last);
+        } catch (InterruptedException e) {
+            // counting gave up
+        }
+    }
+
+    /**
+     * Moves {@code input} past the header of the member following the one just read, if there is one.
+     * @return {@code false} at the end of the input or when only trailing garbage follows, which is ignored like
+     * {@code gzip -d} does
+     */
+    private static boolean nextMember(Input input) throws IOException {
+        if (input.atEnd()) return false;
+        try {
+            return skipHeader(input);
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private CountEngine countMembers(FileChannel channel, CountEngine template) throws IOException {
+        long size = channel.size();
+        long[] candidates = candidates(channel, size);
+        if (candidates.length <= 1) {
+            return countStream(Channels.newInputStream(channel), template.newEngine());
+        }
+
+        Deque<ForkJoinTask<List<Run>>> tasks = new ArrayDeque<>();
+        int maxTasks = 2 * pool.getParallelism();
+        int next = 0;
+        CountEngine total = template.newEngine();
+        long offset = 0;
+        try {
+            chain:
+            while (true) {
+                while (next < candidates.length && tasks.size() < maxTasks) {
+                    int from = next;
+                    int to = rangeEnd(candidates, from);
+                    tasks.add(pool.submit(() -> inflateRange(channel, candidates, from, to, size, template)));
+                    next = to;
+                }
+                ForkJoinTask<List<Run>> task = tasks.poll();
+                if (task == null) break;
+                for (Run run : join(task)) {
+                    if (run.start < offset) continue; // inside a member already counted
+                    if (run.start > offset) break chain;
+                    total.append(run.engine);
+                    offset = run.end;
+                }
+            }
+        } finally {
+            for (ForkJoinTask<List<Run>> unused : tasks) unused.cancel(false);
+        }
+        // trailing garbage is ignored, like gzip -d
+        if (offset < size && (offset == 0 || startsWithMagic(channel, offset))) {
+            channel.position(offset);
+            total.append(countStream(Channels.newInputStream(channel), template.newEngine()));
+        }
+        return total;
+    }
+
+    /**
+     * @return the index after the last candidate of the range starting at {@code from}
+     */
+    private static int rangeEnd(long[] candidates, int from) {
+        long limit = candidates[from] + RANGE_SIZE;
+        int to = from + 1;
+        while (to < candidates.length && candidates[to] < limit) to++;
+        return to;
+    }
+
+    /**
+     * @return the offsets of the byte sequences that look like the start of a member header
+     */
+    private static long[] candidates(FileChannel channel, long size) throws IOException {
+        long[] offsets = new long[16];
+        int count = 0;
+        ByteBuffer window = ByteBuffer.allocate(CountEngine.BUFFER_SIZE + 3);
+        byte[] bytes = window.array();
+        for (long position = 0; position < size; position += CountEngine.BUFFER_SIZE) {
+            window.clear();
+            while (window.hasRemaining() && channel.read(window, position + window.position()) > 0) {
+                // fill the window, including 3 bytes of overlap with the next one
+            }
+            int end = Math.min(window.position() - 3, CountEngine.BUFFER_SIZE);
+            for (int i = 0; i < end; i++) {
+                if ((bytes[i] & 0xFF) == MAGIC_1 && (bytes[i + 1] & 0xFF) == MAGIC_2 && bytes[i + 2] == DEFLATE
+                        && (bytes[i + 3] & RESERVED_FLAGS) == 0) {
+                    if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+                    offsets[count++] = position + i;
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    private static boolean startsWithMagic(FileChannel channel, long offset) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        while (magic.hasRemaining() && channel.read(magic, offset + magic.position()) > 0) {
+            // read both bytes
+        }
+        return isMagic(magic.array(), 0, magic.position());
+    }
+
+    /**
+     * Inflates the candidates {@code from} to {@code to} in order, skipping those inside the member just inflated.
+     * @return the chains of consecutive valid members, in file order
+     */
+    private static List<Run> inflateRange(FileChannel channel, long[] candidates, int from, int to, long size,
+            CountEngine template) throws IOException {
+        List<Run> runs = new ArrayList<>();
+        FileInput input = new FileInput(channel, size);
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        byte[] output = new byte[CountEngine.BUFFER_SIZE];
+        try {
+            Run run = null;
+            for (int i = from; i < to; i++) {
+                long start = candidates[i];
+                if (run != null && start < run.end) continue;
+                input.seek(start);
+                CountEngine engine = template.newEngine();
+                long end = inflateMember(input, inflater, crc, output, engine);
+                if (end < 0) continue;
+                if (run != null && run.end == start) {
+                    run.engine.append(engine);
+                    run.end = end;
+                } else {
+                    run = new Run(start, end, engine);
+                    runs.add(run);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return runs;
+    }
+
+    /**
+     * Inflates the member assumed to start at the position of {@code input} into {@code engine}.
+     * @return the offset after the member, or -1 when there is no valid member there
+     */
+    private static long inflateMember(Input input, Inflater inflater, CRC32 crc, byte[] output, CountEngine engine)
+            throws IOException {
+        inflater.reset();
+        crc.reset();
+        try {
+            if (!skipHeader(input)) return -1;
+            long length = 0;
+            int n;
+            while ((n = inflate(input, inflater, output, 0, output.length)) > 0) {
+                engine.update(output, 0, n);
+                crc.update(output, 0, n);
+                length += n;
+            }
+            return checkTrailer(input, crc, length) ? input.offset() : -1;
+        } catch (DataFormatException | ZipException | EOFException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Inflates the compressed data following the position of {@code input} into {@code output}, feeding
+     * {@code inflater} from {@code input} as it needs more. Once the compressed data ends, {@code input} is moved to
+     * the byte after it.
+     * @return the number of bytes written, 0 once the compressed data has ended
+     */
+    private static int inflate(Input input, Inflater inflater, byte[] output, int offset, int length)
+            throws IOException, DataFormatException {
+        while (true) {
+            int n = inflater.inflate(output, offset, length);
+            if (inflater.finished()) {
+                input.position = input.limit - inflater.getRemaining();
+                return n;
+            }
+            if (n > 0) return n;
+            if (inflater.needsDictionary()) throw new ZipException("Unsupported preset dictionary");
+            if (inflater.needsInput()) {
+                if (input.position == input.limit && !input.fill()) throw new EOFException("Unexpected end of input");
+                inflater.setInput(input.buffer, input.position, input.limit - input.position);
+                input.position = input.limit;
+            }
+        }
+    }
+
+    /**
+     * Reads the member trailer following the compressed data.
+     * @return whether it matches the CRC and length of the inflated content
+     */
+    private static boolean checkTrailer(Input input, CRC32 crc, long length) throws IOException {
+        byte[] trailer = new byte[TRAILER_LENGTH];
+        for (int i = 0; i < trailer.length; i++) trailer[i] = (byte) input.read();
+        return littleEndianInt(trailer, 0) == crc.getValue() && littleEndianInt(trailer, 4) == (length & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Moves {@code input} past the member header.
+     * @return {@code false} when the header is malformed
+     */
+    private static boolean skipHeader(Input input) throws IOException {
+        if (input.read() != MAGIC_1 || input.read() != MAGIC_2 || input.read() != DEFLATE) return false;
+        int flags = input.read();
+        if ((flags & RESERVED_FLAGS) != 0) return false;
+        input.skip(6); // mtime, extra flags, operating system
+        if ((flags & FEXTRA) != 0) input.skip(input.read() | (input.read() << 8));
+        if ((flags & FNAME) != 0) skipZeroTerminated(input);
+        if ((flags & FCOMMENT) != 0) skipZeroTerminated(input);
+        if ((flags & FHCRC) != 0) input.skip(2);
+        return true;
+    }
+
+    private static void skipZeroTerminated(Input input) throws IOException {
+        while (input.read() != 0) {
+            // skip up to and including the terminating zero
+        }
+    }
+
+    private static long littleEndianInt(byte[] b, int offset) {
+        return (b[offset] & 0xFFL) | (b[offset + 1] & 0xFFL) << 8 | (b[offset + 2] & 0xFFL) << 16
+                | (b[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static List<Run> join(ForkJoinTask<List<Run>> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Decompression interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Compressed bytes read through one buffer.
+     */
+    private abstract static class Input {
+        final byte[] buffer = new byte[CountEngine.BUFFER_SIZE];
+        /**
+         * Input offset of {@code buffer[0]}.
+         */
+        long bufferOffset;
+        int position;
+        int limit;
+
+        /**
+         * Reads up to {@code buffer.length} bytes starting at {@link #bufferOffset} into {@code buffer}.
+         * @return the number of bytes read, 0 at the end of the input
+         */
+        abstract int load() throws IOException;
+
+        /**
+         * Replaces the buffer content with the bytes following it.
+         * @return {@code false} at the end of the input
+         */
+        boolean fill() throws IOException {
+            bufferOffset += limit;
+            position = 0;
+            limit = load();
+            return limit > 0;
+        }
+
+        boolean atEnd() throws IOException {
+            return position == limit && !fill();
+        }
+
+        int read() throws IOException {
+            if (atEnd()) throw new EOFException();
+            return buffer[position++] & 0xFF;
+        }
+
+        void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) read();
+        }
+
+        /**
+         * @return the input offset of the next byte to read
+         */
+        long offset() {
+            return bufferOffset + position;
+        }
+    }
+
+    /**
+     * A file read with positional reads so tasks can share the channel.
+     */
+    private static final class FileInput extends Input {
+        private final FileChannel channel;
+        private final long size;
+        private int readSize = FIRST_READ;
+
+        FileInput(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        /**
+         * Moves to {@code offset}, keeping the buffer when it already holds that offset.
+         */
+        void seek(long offset) {
+            if (offset >= bufferOffset && offset <= bufferOffset + limit) {
+                position = (int) (offset - bufferOffset);
+            } else {
+                bufferOffset = offset;
+                position = 0;
+                limit = 0;
+                readSize = FIRST_READ;
+            }
+        }
+
+        @Override
+        int load() throws IOException {
+            if (bufferOffset >= size) return 0;
+            int length = (int) Math.min(readSize, size - bufferOffset);
+            readSize = Math.min(2 * readSize, buffer.length);
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+            while (target.hasRemaining() && channel.read(target, bufferOffset + target.position()) > 0) {
+                // fill the buffer
+            }
+            return target.position();
+        }
+    }
+
+    private static final class StreamInput extends Input {
+        private final InputStream in;
+
+        StreamInput(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        int load() throws IOException {
+            return Math.max(0, in.read(buffer, 0, buffer.length));
+        }
+    }
+
+    private static final class Chunk {
+        final byte[] buffer;
+        final int length;
+        final IOException error;
+
+        Chunk(byte[] buffer, int length, IOException error) {
+            this.buffer = buffer;
+            this.length = length;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Consecutive valid members from {@code start} to {@code end}, counted into one engine.
+     */
+    private static final class Run {
+        final long start;
+        long end;
+        final CountEngine engine;
+
+        Run(long start, long end, CountEngine engine) {
+            this.start = start;
+            this.end = end;
+            this.engine = engine;
+        }
+    }
+}
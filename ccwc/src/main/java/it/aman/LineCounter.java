@@ -0,0 +1,82 @@
+package it.aman;
+
+import java.util.Arrays;
+
+/**
+ * Base for counters that look at whole lines.
+ * <p>
+ * Lines are handed to {@link #count(byte[], int, int)} straight from the read buffer when they fit in it; only a line
+ * cut by the end of a buffer is copied, and completed with the next buffer. A last line without a terminating
+ * {@code '\n'} is included in {@link #value()}.
+ * <p>
+ * The copy is capped at {@link #MAX_LINE_LENGTH} bytes, so input without line breaks cannot exhaust the heap: longer
+ * lines are counted on their first {@link #MAX_LINE_LENGTH} bytes only. Counters that can decide as the bytes stream
+ * past, like {@link PrefixCounter}, should implement {@link Counter} directly instead.
+ */
+abstract class LineCounter implements Counter {
+
+    static final int MAX_LINE_LENGTH = 16 * 1024 * 1024;
+
+    private long count;
+    private byte[] partial = new byte[256];
+    private int partialLength;
+
+    /**
+     * @return the count for the line in {@code [start, end)}, without its {@code '\n'}
+     */
+    protected abstract long count(byte[] bytes, int start, int end);
+
+    @Override
+    public final void update(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] != '\n') continue;
+            if (partialLength > 0) {
+                appendPartial(buffer, start, i);
+                count += count(partial, 0, partialLength);
+                partialLength = 0;
+            } else {
+                count += count(buffer, start, i);
+            }
+            start = i + 1;
+        }
+        appendPartial(buffer, start, end);
+    }
+
+    private void appendPartial(byte[] buffer, int start, int end) {
+        int length = Math.min(end - start, MAX_LINE_LENGTH - partialLength);
+        if (length <= 0) return;
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+        }
+        System.arraycopy(buffer, start, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    @Override
+    public final void append(Counter next) {
+        LineCounter other = (LineCounter) next;
+        // next starts at a line start, so an unterminated last line here is complete
+        if (partialLength > 0) count += count(partial, 0, partialLength);
+        count += other.count;
+        partial = Arrays.copyOf(other.partial, other.partial.length);
+        partialLength = other.partialLength;
+    }
+
+    @Override
+    public final Counter copy() {
+        LineCounter copy = (LineCounter) newCounter();
+        copy.count = count;
+        copy.partial = Arrays.copyOf(partial, partial.length);
+        copy.partialLength = partialLength;
+        return copy;
+    }
+
+    @Override
+    public String value() {
+        long total = count;
+        if (partialLength > 0) total += count(partial, 0, partialLength);
+        return String.valueOf(total);
+    }
+}
@@ -0,0 +1,88 @@
+package it.aman;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads NUL-terminated file names, as written by {@code find -print0}, one at a time.
+ * <p>
+ * Names are decoded lazily while iterating, so counting can start with the first name and the list is never held
+ * in memory. Empty names are skipped and the last name does not need a terminating NUL.
+ */
+final class NulSeparatedNames implements Iterator<String>, Closeable {
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte[] buffer = new byte[CountEngine.BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private byte[] name = new byte[256];
+    private String next;
+    private boolean eof;
+
+    NulSeparatedNames(InputStream in) {
+        this(in, Charset.defaultCharset());
+    }
+
+    NulSeparatedNames(InputStream in, Charset charset) {
+        this.in = in;
+        this.charset = charset;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !eof) {
+            try {
+                next = readName();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        String result = next;
+        next = null;
+        return result;
+    }
+
+    private String readName() throws IOException {
+        int length = 0;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit == -1) {
+                    limit = 0;
+                    eof = true;
+                    return length > 0 ? new String(name, 0, length, charset) : null;
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != 0) position++;
+            int count = position - start;
+            if (length + count > name.length) name = Arrays.copyOf(name, Math.max(name.length * 2, length + count));
+            System.arraycopy(buffer, start, name, length, count);
+            length += count;
+            if (position < limit) {
+                position++; // skip NUL
+                if (length > 0) return new String(name, 0, length, charset);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,132 @@
+package it.aman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Counts a single file on several threads.
+ * <p>
+ * The file is memory-mapped in chunks of {@link #DEFAULT_CHUNK_SIZE} bytes and every chunk is counted by its own
+ * {@link CountEngine} on a {@link ForkJoinPool}. The partial counts are then joined in file order with
+ * {@link CountEngine#append(CountEngine)}, which fixes up the words and lines cut by chunk borders. Each worker
+ * thread copies its chunks through one reused buffer.
+ * <p>
+ * Display widths and counters cannot be joined at an arbitrary byte (see {@link CountEngine#canAppendAnywhere()}).
+ * Only then are chunks extended to end just after a {@code '\n'}, so every chunk starts at the beginning of a line and
+ * on a character boundary; a file without line breaks is then counted on a single thread.
+ */
+class ParallelCounter {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int SCAN_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[CountEngine.BUFFER_SIZE];
+        }
+    };
+
+    ParallelCounter(ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE);
+    }
+
+    ParallelCounter(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    CountEngine count(Path file) throws IOException {
+        return count(file, new CountEngine());
+    }
+
+    /**
+     * Continues counting {@code file} from the state of {@code start}, at byte offset {@link CountEngine#bytes()}.
+     * {@code start} itself is left unchanged.
+     */
+    CountEngine count(Path file, CountEngine start) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long from = start.bytes();
+            CountEngine total = start.copy();
+            boolean anywhere = start.canAppendAnywhere();
+            ByteBuffer window = anywhere ? null : ByteBuffer.allocate(SCAN_SIZE);
+            // the rest of the line being resumed continues the given state, chunks after it start at line starts
+            long chunkStart = anywhere || from == 0 ? from : nextLineStart(channel, window, from, size);
+            countRange(channel, from, chunkStart, total);
+
+            List<ForkJoinTask<CountEngine>> tasks = new ArrayList<>();
+            while (chunkStart < size) {
+                final long chunkFrom = chunkStart;
+                long end = Math.min(size, chunkStart + chunkSize);
+                final long chunkTo = anywhere ? end : nextLineStart(channel, window, end, size);
+                tasks.add(pool.submit(() -> countRange(channel, chunkFrom, chunkTo, start.newEngine())));
+                chunkStart = chunkTo;
+            }
+            for (ForkJoinTask<CountEngine> task : tasks) {
+                total.append(join(task));
+            }
+            return total;
+        }
+    }
+
+    /**
+     * @return the offset just after the first {@code '\n'} at or after {@code position - 1}, or {@code size}
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer window, long position, long size)
+            throws IOException {
+        if (position >= size) return size;
+        long offset = position - 1;
+        while (offset < size) {
+            window.clear();
+            int n = channel.read(window, offset);
+            if (n <= 0) return size;
+            byte[] bytes = window.array();
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '\n') return offset + i + 1;
+            }
+            offset += n;
+        }
+        return size;
+    }
+
+    private CountEngine countRange(FileChannel channel, long from, long to, CountEngine engine) throws IOException {
+        byte[] buffer = buffers.get();
+        for (long position = from; position < to; position += chunkSize) {
+            int length = (int) Math.min(chunkSize, to - position);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            while (mapped.hasRemaining()) {
+                int n = Math.min(buffer.length, mapped.remaining());
+                mapped.get(buffer, 0, n);
+                engine.update(buffer, 0, n);
+            }
+        }
+        return engine;
+    }
+
+    private static CountEngine join(ForkJoinTask<CountEngine> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Counting interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package it.aman;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counts the lines starting with a given prefix, compared as UTF-8 bytes without decoding.
+ * <p>
+ * Matching streams through the input: only whether the current line has started and how many bytes of the prefix it
+ * has matched so far are kept between buffers, so no line is ever buffered, however long it is.
+ */
+final class PrefixCounter implements Counter {
+
+    /**
+     * Value of {@link #matched} once the current line is known not to start with the prefix.
+     */
+    private static final int MISMATCH = -1;
+
+    private final byte[] prefix;
+    private long count;
+    /**
+     * Bytes of the prefix matched by the current line, up to the whole prefix, or {@link #MISMATCH}.
+     */
+    private int matched;
+    /**
+     * Whether the current line has at least one byte, so that an unterminated last line is told from no line.
+     */
+    private boolean inLine;
+
+    PrefixCounter(String prefix) {
+        this(prefix.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PrefixCounter(byte[] prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\n') {
+                if (matched == prefix.length) count++;
+                matched = 0;
+                inLine = false;
+                continue;
+            }
+            inLine = true;
+            if (matched != MISMATCH && matched < prefix.length) {
+                matched = b == prefix[matched] ? matched + 1 : MISMATCH;
+            }
+        }
+    }
+
+    @Override
+    public void append(Counter next) {
+        PrefixCounter other = (PrefixCounter) next;
+        // next starts at a line start, so an unterminated last line here is complete
+        count = total() + other.count;
+        matched = other.matched;
+        inLine = other.inLine;
+    }
+
+    @Override
+    public Counter copy() {
+        PrefixCounter copy = new PrefixCounter(prefix);
+        copy.count = count;
+        copy.matched = matched;
+        copy.inLine = inLine;
+        return copy;
+    }
+
+    @Override
+    public Counter newCounter() {
+        return new PrefixCounter(prefix);
+    }
+
+    @Override
+    public String value() {
+        return String.valueOf(total());
+    }
+
+    private long total() {
+        return inLine && matched == prefix.length ? count + 1 : count;
+    }
+}
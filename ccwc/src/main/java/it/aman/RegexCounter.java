@@ -0,0 +1,48 @@
+package it.aman;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the matches of a regular expression, line by line like {@code grep -o | wc -l}.
+ * Lines are decoded from UTF-8 into one reused buffer and matched with one reused {@link Matcher}.
+ */
+final class RegexCounter extends LineCounter {
+
+    private final Pattern pattern;
+    private final Matcher matcher;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    RegexCounter(Pattern pattern) {
+        this.pattern = pattern;
+        this.matcher = pattern.matcher("");
+    }
+
+    @Override
+    protected long count(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (chars.capacity() < length) chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        chars.clear();
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(bytes, start, length), chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        matcher.reset(chars);
+        long matches = 0;
+        while (matcher.find()) matches++;
+        return matches;
+    }
+
+    @Override
+    public Counter newCounter() {
+        return new RegexCounter(pattern);
+    }
+}
@@ -0,0 +1,239 @@
+package it.aman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of the counts of previously seen files.
+ * <p>
+ * Entries are keyed by canonical path and remember the file identity (inode), the modification time and the complete
+ * {@link CountEngine} state at the end of the file. A file with the same identity, size and modification time is
+ * answered from the cache without reading it. A file that only grew, checked by comparing a CRC of the last
+ * {@link #TAIL_LENGTH} bytes before the old end, is counted from the old end on, continuing the cached state. Anything
+ * else (truncated, rewritten, replaced by rotation) is counted again from the start.
+ * <p>
+ * Every entry also remembers when it was last used. Saving drops the entries of files that no longer exist or that
+ * were not counted for {@link #DEFAULT_MAX_AGE} milliseconds, so counting rotating log archives does not grow the
+ * cache without bound. The last use is only refreshed once a day for files answered from the cache, so a run over
+ * unchanged files does not rewrite the cache file.
+ */
+final class ResultCache {
+
+    static final int TAIL_LENGTH = 4096;
+    static final long DEFAULT_MAX_AGE = TimeUnit.DAYS.toMillis(30);
+
+    private static final long TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final int MAGIC = 0x63637763; // "ccwc"
+    private static final int VERSION = 3;
+
+    /**
+     * Continues counting a file from the state of {@code start}, at byte offset {@link CountEngine#bytes()}, without
+     * modifying {@code start}.
+     */
+    interface Source {
+        CountEngine count(Path file, CountEngine start) throws IOException;
+    }
+
+    private final Path location;
+    private final long maxAge;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    private ResultCache(Path location, long maxAge, LongSupplier clock) {
+        this.location = location;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * @return {@code $XDG_CACHE_HOME/ccwc/results.bin}, or {@code ~/.cache/ccwc/results.bin}
+     */
+    static Path defaultLocation() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base = cacheHome != null && !cacheHome.isEmpty()
+                ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return base.resolve("ccwc").resolve("results.bin");
+    }
+
+    /**
+     * Reads the cache at {@code location}. A missing, unreadable or outdated cache file yields an empty cache.
+     */
+    static ResultCache load(Path location) {
+        return load(location, DEFAULT_MAX_AGE, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxAge milliseconds after which an entry that was not used is dropped
+     * @param clock  current time in milliseconds
+     */
+    static ResultCache load(Path location, long maxAge, LongSupplier clock) {
+        ResultCache cache = new ResultCache(location, maxAge, clock);
+        if (!Files.exists(location)) return cache;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(location)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return cache;
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = in.readUTF();
+                Entry entry = new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readLong(),
+                        CountEngine.readFrom(in));
+                cache.entries.put(path, entry);
+            }
+        } catch (IOException e) {
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Drops the entries of deleted files and of files not used for the maximum age, then writes the cache back if
+     * anything changed. The file is replaced atomically, so concurrent runs never see a partially written cache.
+     */
+    void save() throws IOException {
+        evict();
+        if (!modified) return;
+        Path directory = location.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "results", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(entry.fileKey);
+                    out.writeLong(entry.lastModified);
+                    out.writeLong(entry.tailCrc);
+                    out.writeLong(entry.lastUsed);
+                    entry.engine.writeTo(out);
+                }
+            }
+            Files.move(temp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        modified = false;
+    }
+
+    private void evict() {
+        long oldest = clock.getAsLong() - maxAge;
+        for (Iterator<Map.Entry<String, Entry>> i = entries.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<String, Entry> e = i.next();
+            if (e.getValue().lastUsed < oldest || !Files.exists(Paths.get(e.getKey()))) {
+                i.remove();
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of files with cached counts
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Counts {@code file}, reading only what the cache does not already cover.
+     * @param displayWidth whether the longest line must be measured, see {@link CountEngine#CountEngine(boolean)}
+     */
+    CountEngine count(Path file, boolean displayWidth, Source source) throws IOException {
+        Path canonical = file.toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(canonical, BasicFileAttributes.class);
+        String key = canonical.toString();
+        String fileKey = String.valueOf(attributes.fileKey());
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry cached = entries.get(key);
+        if (cached != null && cached.fileKey.equals(fileKey) && cached.engine.measuresDisplayWidth() == displayWidth) {
+            long end = cached.engine.bytes();
+            if (size == end && lastModified == cached.lastModified) {
+                touch(key, cached);
+                return cached.engine.copy();
+            }
+            if (size > end && tailCrc(canonical, end) == cached.tailCrc) {
+                CountEngine engine = source.count(canonical, cached.engine);
+                store(key, fileKey, lastModified, canonical, engine);
+                return engine;
+            }
+        }
+        CountEngine engine = source.count(canonical, new CountEngine(displayWidth));
+        store(key, fileKey, lastModified, canonical, engine);
+        return engine;
+    }
+
+    private void store(String key, String fileKey, long lastModified, Path file, CountEngine engine) throws IOException {
+        entries.put(key, new Entry(fileKey, lastModified, tailCrc(file, engine.bytes()), clock.getAsLong(),
+                engine.copy()));
+        modified = true;
+    }
+
+    private void touch(String key, Entry entry) {
+        long now = clock.getAsLong();
+        if (now - entry.lastUsed < TOUCH_INTERVAL) return;
+        entries.put(key, new Entry(entry.fileKey, entry.lastModified, entry.tailCrc, now, entry.engine));
+        modified = true;
+    }
+
+    /**
+     * @return the CRC32 of the up to {@link #TAIL_LENGTH} bytes before {@code end}, or -1 when the file is shorter
+     */
+    static long tailCrc(Path file, long end) throws IOException {
+        long start = Math.max(0, end - TAIL_LENGTH);
+        ByteBuffer tail = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, start + tail.position()) < 0) return -1;
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(tail.array(), 0, tail.capacity());
+        return crc.getValue();
+    }
+
+    private static final class Entry {
+        final String fileKey;
+        final long lastModified;
+        final long tailCrc;
+        /**
+         * When the entry was last stored or answered from, in milliseconds since the epoch.
+         */
+        final long lastUsed;
+        /**
+         * State at the end of the counted part; {@link CountEngine#bytes()} is the offset counting resumes from.
+         */
+        final CountEngine engine;
+
+        Entry(String fileKey, long lastModified, long tailCrc, long lastUsed, CountEngine engine) {
+            this.fileKey = fileKey;
+            this.lastModified = lastModified;
+            this.tailCrc = tailCrc;
+            this.lastUsed = lastUsed;
+            this.engine = engine;
+        }
+    }
+}
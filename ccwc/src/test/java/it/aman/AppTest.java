@@ -1,8 +1,23 @@
 package it.aman;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +56,137 @@ public class AppTest {
         assertNotNull(parseArgs2.parse().get("lines"));
 
     }
+
+    @Test
+    public void parseArg_option_value() {
+        App.ParseArgs parseArgs = new App.ParseArgs(new String[]{"--parallel=4", "big.log"});
+        App.ParseArgs parseArgs2 = new App.ParseArgs(new String[]{"--parallel"});
+        App.ParseArgs parseArgs3 = new App.ParseArgs(new String[]{"--parallel=x"});
+        App.ParseArgs parseArgs4 = new App.ParseArgs(new String[]{"--lines=2"});
+
+        assertEquals("4", ((App.CommandOption) parseArgs.parse().get("parallel")).value);
+        assertNotNull(parseArgs2.parse().get("parallel"));
+        assertNull(((App.CommandOption) parseArgs2.parse().get("parallel")).value);
+        assertNotNull(parseArgs3.parse().get("help"));
+        assertNotNull(parseArgs4.parse().get("help"));
+        assertEquals("-", ((App.CommandOption) new App.ParseArgs(new String[]{"--files0-from=-"}).parse().get("files0-from")).value);
+        assertNotNull(new App.ParseArgs(new String[]{"--files0-from"}).parse().get("help"));
+        assertEquals("0.5", ((App.CommandOption) new App.ParseArgs(new String[]{"--follow=0.5", "a.log"}).parse().get("follow")).value);
+        assertNotNull(new App.ParseArgs(new String[]{"--follow=0.001", "a.log"}).parse().get("follow"));
+        assertNotNull(new App.ParseArgs(new String[]{"--follow=1e-12", "a.log"}).parse().get("help"));
+        assertNotNull(new App.ParseArgs(new String[]{"--follow=0", "a.log"}).parse().get("help"));
+    }
+
+    @Test
+    public void run_prints_rows_in_argument_order_with_total(@TempDir Path dir) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Path file = dir.resolve("file" + i + ".txt");
+            Files.write(file, repeat("word\n", i).getBytes(StandardCharsets.UTF_8));
+            files.add(file.toString());
+        }
+        Map<String, Object> options = new HashMap<>();
+        options.put("lines", new App.CommandOption("l", "lines", "Count lines"));
+        options.put("files", files);
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            new App(options).run();
+        } finally {
+            System.setOut(out);
+        }
+
+        String[] rows = captured.toString().split("\n");
+        assertEquals(201, rows.length);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i + " " + files.get(i), rows[i]);
+        }
+        assertEquals("19900 total", rows[200]);
+    }
+
+    @Test
+    public void run_totals_max_line_length_and_counters(@TempDir Path dir) throws IOException {
+        Path first = Files.write(dir.resolve("first.txt"), "ab\nxx abcdef\n".getBytes(StandardCharsets.UTF_8));
+        Path second = Files.write(dir.resolve("second.txt"), "xx\nabc\nxx\n".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> options = new HashMap<>();
+        options.put("lines", new App.CommandOption("l", "lines", "Count lines"));
+        options.put("max-line-length", new App.CommandOption("L", "max-line-length", "Longest line"));
+        options.put("count-prefix", new App.CommandOption(null, "count-prefix", "Count prefix", "xx"));
+        options.put("files", Arrays.asList(first.toString(), second.toString()));
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            new App(options).run();
+        } finally {
+            System.setOut(out);
+        }
+
+        String[] rows = captured.toString().split("\n");
+        assertEquals(3, rows.length);
+        assertEquals("2 9 1 " + first, rows[0]);
+        assertEquals("3 3 2 " + second, rows[1]);
+        assertEquals("5 9 3 total", rows[2]);
+    }
+
+    @Test
+    public void run_counts_all_of_stdin() {
+        Map<String, Object> options = new HashMap<>();
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setIn(new ByteArrayInputStream(repeat("two words\r\n", 50_000).getBytes(StandardCharsets.UTF_8)));
+        System.setOut(new PrintStream(captured, true));
+        try {
+            new App(options).run();
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+        assertEquals("50000 100000 550000 \n", captured.toString());
+    }
+
+    @Test
+    public void run_counts_every_gzip_member_of_stdin() throws IOException {
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int i = 0; i < 5000; i++) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(members) {
+                @Override
+                public void close() throws IOException {
+                    finish(); // keep the shared stream open
+                }
+            }) {
+                gzip.write("two words\n".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // like a pipe, never reports bytes as available
+        InputStream pipe = new FilterInputStream(new ByteArrayInputStream(members.toByteArray())) {
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+        Map<String, Object> options = new HashMap<>();
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setIn(pipe);
+        System.setOut(new PrintStream(captured, true));
+        try {
+            new App(options).run();
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+        assertEquals("5000 10000 50000 \n", captured.toString());
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) builder.append(s);
+        return builder.toString();
+    }
 }
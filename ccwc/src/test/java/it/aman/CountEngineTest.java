@@ -0,0 +1,116 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CountEngineTest {
+
+    // expected values from GNU wc 9.1 in a UTF-8 locale
+    @Test
+    public void count_matches_wc_on_sample_file() throws IOException {
+        CountEngine engine = new CountEngine(true);
+        try (InputStream in = CountEngineTest.class.getResourceAsStream("/test.txt")) {
+            engine.update(in, new byte[CountEngine.BUFFER_SIZE]);
+        }
+        assertEquals(7145, engine.lines());
+        assertEquals(58164, engine.words());
+        assertEquals(334802, engine.bytes());
+        assertEquals(332146, engine.chars());
+        assertEquals(78, engine.maxLineLength());
+    }
+
+    @Test
+    public void count_crlf_and_utf8() {
+        CountEngine engine = count("héllo wörld\r\n日本語 text\r\nlast", true);
+        assertEquals(2, engine.lines());
+        assertEquals(5, engine.words());
+        assertEquals(35, engine.bytes());
+        assertEquals(27, engine.chars());
+        assertEquals(11, engine.maxLineLength());
+    }
+
+    // expected values from GNU wc -L in a UTF-8 locale
+    @Test
+    public void max_line_length_in_display_columns() {
+        assertEquals(9, count("a\tb\n", true).maxLineLength());
+        assertEquals(10, count("日本\t語\n", true).maxLineLength());
+        assertEquals(2, count("e\u0301e\u0301\n", true).maxLineLength());
+        assertEquals(3, count("abc\rxy\n", true).maxLineLength());
+        assertEquals(4, count("ab\fcdef", true).maxLineLength());
+        assertEquals(3, count("\uD83D\uDE00x\n", true).maxLineLength());
+        assertEquals(2, count("\u0001\u007Fab\n", true).maxLineLength());
+        assertEquals(0, count("a\tb\n", false).maxLineLength());
+    }
+
+    @Test
+    public void max_line_length_across_buffers() {
+        byte[] input = "x\t日本語\u0301 🎉\nshort\n".getBytes(StandardCharsets.UTF_8);
+        long expected = count("x\t日本語\u0301 🎉\nshort\n", true).maxLineLength();
+        assertEquals(17, expected);
+        for (int split = 0; split <= input.length; split++) {
+            CountEngine engine = new CountEngine(true);
+            engine.update(input, 0, split);
+            engine.update(input, split, input.length - split);
+            assertEquals(expected, engine.maxLineLength(), "split at " + split);
+        }
+    }
+
+    @Test
+    public void count_words_across_buffers() {
+        byte[] input = " one\ttwo  three\n\u000Bfour ".getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= input.length; split++) {
+            CountEngine engine = new CountEngine();
+            engine.update(input, 0, split);
+            engine.update(input, split, input.length - split);
+            assertEquals(4, engine.words(), "split at " + split);
+            assertEquals(1, engine.lines());
+            assertEquals(input.length, engine.bytes());
+        }
+    }
+
+    @Test
+    public void append_matches_single_pass_at_every_split() {
+        String text = "日本 word\n\nxx  yyy\tü\nend";
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= input.length; split++) {
+            // display width needs the second part to start at a line start
+            boolean displayWidth = split == 0 || input[split - 1] == '\n';
+            CountEngine whole = count(text, displayWidth);
+            CountEngine first = new CountEngine(displayWidth);
+            CountEngine second = new CountEngine(displayWidth);
+            first.update(input, 0, split);
+            second.update(input, split, input.length - split);
+            first.append(second);
+            assertEquals(whole.lines(), first.lines(), "split at " + split);
+            assertEquals(whole.words(), first.words(), "split at " + split);
+            assertEquals(whole.bytes(), first.bytes(), "split at " + split);
+            assertEquals(whole.chars(), first.chars(), "split at " + split);
+            assertEquals(whole.maxLineLength(), first.maxLineLength(), "split at " + split);
+        }
+    }
+
+    @Test
+    public void count_empty_input() {
+        CountEngine engine = count("");
+        assertEquals(0, engine.lines());
+        assertEquals(0, engine.words());
+        assertEquals(0, engine.bytes());
+        assertEquals(0, engine.maxLineLength());
+    }
+
+    private static CountEngine count(String text) {
+        return count(text, false);
+    }
+
+    private static CountEngine count(String text, boolean displayWidth) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        CountEngine engine = new CountEngine(displayWidth);
+        engine.update(bytes, 0, bytes.length);
+        return engine;
+    }
+}
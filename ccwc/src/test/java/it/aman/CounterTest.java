@@ -0,0 +1,115 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CounterTest {
+
+    private static final String LOG = "INFO start\nWARN disk 91%\nINFO user=日本 id=7\nERROR id=8 id=9\nINFO end";
+
+    @Test
+    public void count_regex_matches_at_every_split() {
+        assertAtEverySplit(new RegexCounter(Pattern.compile("id=\\d")), "3");
+        assertAtEverySplit(new RegexCounter(Pattern.compile("日本")), "1");
+        assertAtEverySplit(new RegexCounter(Pattern.compile("end$")), "1");
+    }
+
+    @Test
+    public void count_prefix_at_every_split() {
+        assertAtEverySplit(new PrefixCounter("INFO"), "3");
+        assertAtEverySplit(new PrefixCounter("ERROR id"), "1");
+        assertAtEverySplit(new PrefixCounter("INFO end and more"), "0");
+    }
+
+    @Test
+    public void count_prefix_streams_long_lines() {
+        Counter counter = new PrefixCounter("INFO");
+        byte[] chunk = "INFO xxxxxxxxxxxxxxx ".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 100_000; i++) counter.update(chunk, 0, chunk.length);
+        assertEquals("1", counter.value());
+        update(counter, "\nINF\nINFO\n\n");
+        assertEquals("2", counter.value());
+
+        Counter empty = new PrefixCounter("");
+        update(empty, "a\n\nb");
+        assertEquals("3", empty.value());
+    }
+
+    @Test
+    public void count_regex_caps_buffered_line() {
+        Counter counter = new RegexCounter(Pattern.compile("id=\\d"));
+        byte[] filler = new byte[64 * 1024];
+        Arrays.fill(filler, (byte) 'x');
+        update(counter, "id=1 ");
+        for (int i = 0; i <= LineCounter.MAX_LINE_LENGTH / filler.length; i++) counter.update(filler, 0, filler.length);
+        update(counter, " id=2\nid=3");
+        assertEquals("2", counter.value());
+    }
+
+    @Test
+    public void count_byte_histogram() {
+        ByteHistogram histogram = new ByteHistogram();
+        byte[] bytes = "aab\n".getBytes(StandardCharsets.UTF_8);
+        histogram.update(bytes, 0, bytes.length);
+        assertEquals(2, histogram.count('a'));
+        assertEquals("{0a=1,61=2,62=1}", histogram.value());
+        assertAtEverySplit(new ByteHistogram(), histogram(LOG));
+    }
+
+    @Test
+    public void append_counts_unterminated_line_of_previous_input() {
+        Counter first = new PrefixCounter("x");
+        Counter second = first.newCounter();
+        update(first, "a\nx1");
+        update(second, "x2\nb");
+        first.append(second);
+        assertEquals("2", first.value());
+    }
+
+    @Test
+    public void counters_run_in_parallel_count(@TempDir Path dir) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) text.append(i % 3 == 0 ? "INFO " : "WARN ").append("id=").append(i).append('\n');
+        Path file = Files.write(dir.resolve("app.log"), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        CountEngine template = new CountEngine(false, new Counter[]{
+                new RegexCounter(Pattern.compile("id=\\d+")), new PrefixCounter("INFO"), new ByteHistogram()});
+        App.Result result = new ParallelCounter(ForkJoinPool.commonPool(), 64).count(file, template.newEngine())
+                .toResult("app.log");
+        assertEquals("300", result.counters[0].value());
+        assertEquals("100", result.counters[1].value());
+        assertEquals(histogram(text.toString()), result.counters[2].value());
+    }
+
+    private static void assertAtEverySplit(Counter template, String expected) {
+        byte[] bytes = LOG.getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= bytes.length; split++) {
+            Counter counter = template.newCounter();
+            counter.update(bytes, 0, split);
+            counter.update(bytes, split, bytes.length - split);
+            assertEquals(expected, counter.value(), "split at " + split);
+            assertEquals(expected, counter.copy().value(), "copy at " + split);
+        }
+    }
+
+    private static String histogram(String text) {
+        ByteHistogram histogram = new ByteHistogram();
+        update(histogram, text);
+        return histogram.value();
+    }
+
+    private static void update(Counter counter, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        counter.update(bytes, 0, bytes.length);
+    }
+}
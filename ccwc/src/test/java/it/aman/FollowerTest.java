@@ -0,0 +1,79 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FollowerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void follow_appends_and_rotation() throws IOException, InterruptedException {
+        Path file = dir.resolve("app.log");
+        write(file, "first line\n");
+        try (Follower follower = new Follower(Collections.singletonList(file.toString()), new CountEngine(true))) {
+            Follower.Tracked tracked = follower.files().get(0);
+            assertEquals(1, tracked.result().lineCount);
+
+            Files.write(file, "second line\nthird\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            await(follower, () -> tracked.result().lineCount, 3);
+            assertEquals(5, tracked.result().wordCount);
+            assertEquals(2, tracked.takeLines());
+            assertEquals(18, tracked.takeBytes());
+
+            // copy-truncate rotation
+            write(file, "x\n");
+            await(follower, () -> tracked.result().byteCount, 2);
+            assertEquals(1, tracked.result().lineCount);
+
+            // rename and create rotation
+            Path rotated = dir.resolve("app.log.1");
+            Path next = dir.resolve("next.tmp");
+            Files.move(file, rotated);
+            write(next, "a b c d e f g h\n");
+            Files.move(next, file, StandardCopyOption.ATOMIC_MOVE);
+            await(follower, () -> tracked.result().wordCount, 8);
+            assertEquals(1, tracked.result().lineCount);
+            assertEquals(15, tracked.result().maxLineLength);
+        }
+    }
+
+    @Test
+    public void follow_detects_copy_truncate_grown_past_old_end() throws IOException, InterruptedException {
+        Path file = dir.resolve("app.log");
+        write(file, "one two\n");
+        try (Follower follower = new Follower(Collections.singletonList(file.toString()), new CountEngine())) {
+            Follower.Tracked tracked = follower.files().get(0);
+            // truncated and refilled before any event is handled, so the file only looks longer
+            write(file, "a\nb\nc\nd\ne\n");
+            await(follower, () -> tracked.result().byteCount, 10);
+            assertEquals(5, tracked.result().lineCount);
+            assertEquals(5, tracked.result().wordCount);
+        }
+    }
+
+    private static void await(Follower follower, LongSupplier actual, long expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (actual.getAsLong() != expected && System.nanoTime() < deadline) {
+            follower.awaitUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
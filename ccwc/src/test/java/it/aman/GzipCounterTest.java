@@ -0,0 +1,139 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GzipCounterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void count_single_member_matches_plain_count() throws IOException {
+        byte[] bytes = text(2000);
+        Path file = Files.write(dir.resolve("input.gz"), gzip(bytes, 0, bytes.length, Deflater.DEFAULT_COMPRESSION));
+        GzipCounter counter = new GzipCounter(ForkJoinPool.commonPool());
+
+        assertTrue(GzipCounter.isGzip(file));
+        assertCounts(bytes, counter.count(file, new CountEngine()));
+        assertCounts(bytes, counter.count(file, new CountEngine(true)));
+    }
+
+    @Test
+    public void count_members_split_anywhere() throws IOException {
+        byte[] bytes = text(3000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int memberSize : new int[]{13, 1000, bytes.length / 2, bytes.length}) {
+                ByteArrayOutputStream members = new ByteArrayOutputStream();
+                for (int from = 0; from < bytes.length; from += memberSize) {
+                    int length = Math.min(memberSize, bytes.length - from);
+                    // stored blocks copy the text as is, so its fake gzip headers show up as candidates
+                    members.write(gzip(bytes, from, length, memberSize % 2 == 0 ? Deflater.NO_COMPRESSION : 9));
+                }
+                members.write(new byte[16]); // padding after the last member is ignored, as by gzip -d
+                Path file = Files.write(dir.resolve("members.gz"), members.toByteArray());
+
+                GzipCounter counter = new GzipCounter(pool);
+                assertCounts(bytes, counter.count(file, new CountEngine()));
+                assertCounts(bytes, counter.count(file, new CountEngine(true)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void count_small_members_over_several_ranges() throws IOException {
+        byte[] bytes = text(100_000);
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        for (int from = 0; from < bytes.length; from += 1000) {
+            int length = Math.min(1000, bytes.length - from);
+            members.write(gzip(bytes, from, length, from % 7000 == 0 ? 9 : Deflater.NO_COMPRESSION));
+        }
+        assertTrue(members.size() > 2 * GzipCounter.RANGE_SIZE);
+        Path file = Files.write(dir.resolve("small.gz"), members.toByteArray());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertCounts(bytes, new GzipCounter(pool).count(file, new CountEngine()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void count_stream() throws IOException {
+        byte[] bytes = text(5000);
+        byte[] compressed = gzip(bytes, 0, bytes.length, Deflater.DEFAULT_COMPRESSION);
+        CountEngine actual = new GzipCounter(ForkJoinPool.commonPool())
+                .countStream(new ByteArrayInputStream(compressed), new CountEngine(true));
+        assertCounts(bytes, actual);
+    }
+
+    @Test
+    public void count_corrupt_input_fails() throws IOException {
+        byte[] bytes = text(100);
+        byte[] compressed = gzip(bytes, 0, bytes.length, Deflater.DEFAULT_COMPRESSION);
+        compressed[compressed.length - 6] ^= 1; // CRC of the content
+        Path file = Files.write(dir.resolve("corrupt.gz"), compressed);
+        Path plain = Files.write(dir.resolve("plain.txt"), bytes);
+
+        assertThrows(IOException.class, () -> new GzipCounter(ForkJoinPool.commonPool()).count(file, new CountEngine()));
+        assertFalse(GzipCounter.isGzip(plain));
+    }
+
+    private static byte[] text(int lines) {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        for (int i = 0; i < lines; i++) {
+            byte[] line = ("line " + i + " héllo 日本語\t").getBytes(StandardCharsets.UTF_8);
+            text.write(line, 0, line.length);
+            if (i % 11 == 0) {
+                // looks like the start of a gzip member
+                text.write(0x1F);
+                text.write(0x8B);
+                text.write(8);
+                text.write(0);
+            }
+            text.write('\n');
+            if (i % 7 == 0) text.write('\n');
+        }
+        return text.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes, int from, int length, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(bytes, from, length);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertCounts(byte[] bytes, CountEngine actual) {
+        CountEngine expected = new CountEngine(actual.measuresDisplayWidth());
+        expected.update(bytes, 0, bytes.length);
+        assertEquals(expected.lines(), actual.lines());
+        assertEquals(expected.words(), actual.words());
+        assertEquals(expected.bytes(), actual.bytes());
+        assertEquals(expected.chars(), actual.chars());
+        assertEquals(expected.maxLineLength(), actual.maxLineLength());
+    }
+}
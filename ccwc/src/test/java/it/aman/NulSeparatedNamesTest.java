@@ -0,0 +1,52 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class NulSeparatedNamesTest {
+
+    @Test
+    public void read_names() {
+        assertEquals(Arrays.asList("a.txt", "dir/b.log", "c d"), read(stream("a.txt\0dir/b.log\0\0c d\0"), false));
+        assertEquals(Arrays.asList("a", "last"), read(stream("a\0last"), false));
+        assertFalse(new NulSeparatedNames(stream("")).hasNext());
+    }
+
+    @Test
+    public void read_names_across_reads() {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 70_000; i++) longName.append((char) ('a' + i % 26));
+        String input = "first\0" + longName + "\0日本.txt\0";
+        assertEquals(Arrays.asList("first", longName.toString(), "日本.txt"), read(stream(input), true));
+    }
+
+    private static List<String> read(InputStream in, boolean oneByteAtATime) {
+        if (oneByteAtATime) {
+            in = new FilterInputStream(in) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return super.read(b, off, Math.min(len, 1));
+                }
+            };
+        }
+        List<String> names = new ArrayList<>();
+        NulSeparatedNames iterator = new NulSeparatedNames(in, StandardCharsets.UTF_8);
+        while (iterator.hasNext()) names.add(iterator.next());
+        return names;
+    }
+
+    private static InputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
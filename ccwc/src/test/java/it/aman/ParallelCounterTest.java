@@ -0,0 +1,93 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelCounterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void count_matches_sequential_count() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append(" héllo 日本語  ").append(i % 7 == 0 ? "\n\n" : "\t").append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(dir.resolve("input.txt"), bytes);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkSize : new int[]{1, 7, 64, 1000, bytes.length, bytes.length + 1}) {
+                assertCounts(bytes, new ParallelCounter(pool, chunkSize).count(file, new CountEngine(true)), chunkSize);
+                assertCounts(bytes, new ParallelCounter(pool, chunkSize).count(file), chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void count_resumes_from_engine_state() throws IOException {
+        byte[] bytes = "first\tline 日本\nsecond line\n\tthird".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(dir.resolve("input.txt"), bytes);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (int from = 0; from <= bytes.length; from++) {
+                CountEngine start = new CountEngine(true);
+                start.update(bytes, 0, from);
+                assertCounts(bytes, new ParallelCounter(pool, 4).count(file, start), from);
+                assertEquals(from, start.bytes());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void count_splits_input_without_line_breaks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) text.append("wörd").append(i).append(i % 5 == 0 ? "  " : " 日本 ");
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(dir.resolve("no-newlines.txt"), bytes);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkSize : new int[]{1, 3, 16, 100}) {
+                assertCounts(bytes, new ParallelCounter(pool, chunkSize).count(file), chunkSize);
+                assertCounts(bytes, new ParallelCounter(pool, chunkSize).count(file, new CountEngine(true)), chunkSize);
+                CountEngine start = new CountEngine();
+                start.update(bytes, 0, 7);
+                assertCounts(bytes, new ParallelCounter(pool, chunkSize).count(file, start), chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void count_empty_file() throws IOException {
+        Path file = Files.write(dir.resolve("empty.txt"), new byte[0]);
+        CountEngine actual = new ParallelCounter(ForkJoinPool.commonPool()).count(file);
+        assertEquals(0, actual.bytes());
+        assertEquals(0, actual.words());
+    }
+
+    private static void assertCounts(byte[] bytes, CountEngine actual, int variant) {
+        CountEngine expected = new CountEngine(actual.measuresDisplayWidth());
+        expected.update(bytes, 0, bytes.length);
+        assertEquals(expected.lines(), actual.lines(), "case " + variant);
+        assertEquals(expected.words(), actual.words(), "case " + variant);
+        assertEquals(expected.bytes(), actual.bytes(), "case " + variant);
+        assertEquals(expected.chars(), actual.chars(), "case " + variant);
+        assertEquals(expected.maxLineLength(), actual.maxLineLength(), "case " + variant);
+    }
+}
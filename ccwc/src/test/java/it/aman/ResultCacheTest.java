@@ -0,0 +1,136 @@
+package it.aman;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResultCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Long> reads = new ArrayList<>();
+
+    @Test
+    public void unchanged_file_is_not_read_again() throws IOException {
+        Path file = write("log.txt", "one two\nthree\n");
+        Path location = dir.resolve("cache.bin");
+
+        ResultCache cache = ResultCache.load(location);
+        assertCounts(file, cache.count(file, true, this::read));
+        cache.save();
+
+        ResultCache reloaded = ResultCache.load(location);
+        assertCounts(file, reloaded.count(file, true, this::read));
+        assertEquals(1, reads.size());
+    }
+
+    @Test
+    public void appended_file_is_read_from_previous_end() throws IOException {
+        Path file = write("log.txt", "one two\nthr\t日");
+        ResultCache cache = ResultCache.load(dir.resolve("cache.bin"));
+        cache.count(file, true, this::read);
+
+        Files.write(file, "ee\tfour\nfive".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertCounts(file, cache.count(file, true, this::read));
+        assertEquals(15L, (long) reads.get(1));
+    }
+
+    @Test
+    public void rewritten_file_is_read_from_start() throws IOException {
+        Path file = write("log.txt", "one two\nthree\n");
+        ResultCache cache = ResultCache.load(dir.resolve("cache.bin"));
+        cache.count(file, true, this::read);
+
+        write("log.txt", "ONE two\nthree\nfour five\n");
+        assertCounts(file, cache.count(file, true, this::read));
+        write("log.txt", "short\n");
+        assertCounts(file, cache.count(file, true, this::read));
+        assertEquals(0L, (long) reads.get(1));
+        assertEquals(0L, (long) reads.get(2));
+    }
+
+    @Test
+    public void cached_counts_without_display_width_are_not_reused_for_it() throws IOException {
+        Path file = write("log.txt", "one two\n");
+        ResultCache cache = ResultCache.load(dir.resolve("cache.bin"));
+        cache.count(file, false, this::read);
+        assertCounts(file, cache.count(file, true, this::read));
+        assertEquals(2, reads.size());
+    }
+
+    @Test
+    public void save_drops_deleted_and_unused_files() throws IOException {
+        Path kept = write("kept.log", "a\n");
+        Path deleted = write("deleted.log", "b\n");
+        Path unused = write("unused.log", "c\n");
+        Path location = dir.resolve("cache.bin");
+        long day = TimeUnit.DAYS.toMillis(1);
+        AtomicLong now = new AtomicLong(100 * day);
+
+        ResultCache cache = ResultCache.load(location, 10 * day, now::get);
+        cache.count(kept, false, this::read);
+        cache.count(deleted, false, this::read);
+        cache.count(unused, false, this::read);
+        cache.save();
+        assertEquals(3, ResultCache.load(location, 10 * day, now::get).size());
+
+        Files.delete(deleted);
+        now.addAndGet(6 * day);
+        cache = ResultCache.load(location, 10 * day, now::get);
+        cache.count(kept, false, this::read);
+        cache.save();
+        assertEquals(2, ResultCache.load(location, 10 * day, now::get).size());
+
+        now.addAndGet(6 * day);
+        cache = ResultCache.load(location, 10 * day, now::get);
+        cache.save();
+        cache = ResultCache.load(location, 10 * day, now::get);
+        assertEquals(1, cache.size());
+        cache.count(kept, false, this::read);
+        assertEquals(3, reads.size());
+    }
+
+    @Test
+    public void corrupt_cache_is_ignored() throws IOException {
+        Path location = Files.write(dir.resolve("cache.bin"), new byte[]{1, 2, 3});
+        Path file = write("log.txt", "a b c\n");
+        assertCounts(file, ResultCache.load(location).count(file, true, this::read));
+        assertEquals(1, reads.size());
+    }
+
+    private CountEngine read(Path file, CountEngine start) throws IOException {
+        int from = (int) start.bytes();
+        reads.add((long) from);
+        byte[] bytes = Files.readAllBytes(file);
+        CountEngine engine = start.copy();
+        engine.update(bytes, from, bytes.length - from);
+        return engine;
+    }
+
+    private void assertCounts(Path file, CountEngine actual) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        CountEngine expected = new CountEngine(true);
+        expected.update(bytes, 0, bytes.length);
+        assertEquals(expected.lines(), actual.lines());
+        assertEquals(expected.words(), actual.words());
+        assertEquals(expected.bytes(), actual.bytes());
+        assertEquals(expected.chars(), actual.chars());
+        assertEquals(expected.maxLineLength(), actual.maxLineLength());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package it.aman.jsonparser;
+
+import java.math.BigInteger;
+
+/**
+ * Writes the shortest decimal that reads back as the same {@code double}, straight into a byte array.
+ * <p>
+ * The digits come from Giulietti's Schubfach algorithm: the value and the two halfway points to its neighbours are
+ * scaled by a 126-bit approximation of a power of ten, and the shortest decimal inside that interval is picked with a
+ * few 64-bit multiplications. No {@link String} or {@link java.math.BigDecimal} is involved, so formatting allocates
+ * nothing. The output uses plain notation for decimal exponents from -6 to 21, like JavaScript, and scientific
+ * notation otherwise.
+ */
+final class DoubleFormatter {
+
+    /**
+     * Longest output: sign, 17 digits, point, {@code e-} and three exponent digits.
+     */
+    static final int MAX_LENGTH = 25;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    /**
+     * Subnormals with a significand below this need one more digit of precision.
+     */
+    private static final long C_TINY = 3;
+    private static final long MASK_63 = 0x7FFF_FFFF_FFFF_FFFFL;
+
+    /**
+     * For every {@code k} from {@link #K_MIN} to {@link #K_MAX}, {@code g = floor(10^-k / 2^r) + 1} with {@code r}
+     * chosen so that {@code 2^125 <= g < 2^126}; high 63 bits at {@code 2 * i}, low 63 bits at {@code 2 * i + 1}.
+     */
+    private static final long[] G = powersOfTen();
+
+    /**
+     * Writes the finite {@code v} at {@code position} of {@code buffer}, which must have room for {@link #MAX_LENGTH}
+     * bytes.
+     * @return the position after the last byte written
+     */
+    static int write(double v, byte[] buffer, int position) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bits < 0) buffer[position++] = '-';
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) { // integers below 2^53 are exact
+                long f = c >> mq;
+                if (f << mq == c) return digits(f, 0, buffer, position);
+            }
+            return shortest(-mq, c, 0, buffer, position);
+        }
+        if (t != 0) {
+            return t < C_TINY ? shortest(Q_MIN, 10 * t, -1, buffer, position) : shortest(Q_MIN, t, 0, buffer, position);
+        }
+        buffer[position++] = '0';
+        return position;
+    }
+
+    /**
+     * Writes the shortest decimal that rounds to {@code c * 2^q}.
+     */
+    private static int shortest(int q, long c, int dk, byte[] buffer, int position) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else { // the lower neighbour is closer
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 2;
+        int index = 2 * (k - K_MIN);
+        long g1 = G[index];
+        long g0 = G[index + 1];
+
+        long vb = roundOdd(g1, g0, cb << h);
+        long vbl = roundOdd(g1, g0, cbl << h);
+        long vbr = roundOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less than the precision, if it is inside the rounding interval
+            long sp10 = 10 * NumberParser.unsignedMultiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return digits(upin ? sp10 : tp10, k, buffer, position);
+        }
+        long u = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (u << 2) + out <= vbr;
+        if (uin != win) return digits(uin ? s : u, k + dk, buffer, position);
+        long cmp = vb - (s + u << 1);
+        return digits(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : u, k + dk, buffer, position);
+    }
+
+    /**
+     * @return {@code g * cp / 2^127} rounded to odd, {@code g} being {@code g1 * 2^63 + g0}
+     */
+    private static long roundOdd(long g1, long g0, long cp) {
+        long x1 = NumberParser.unsignedMultiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = NumberParser.unsignedMultiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Writes {@code f * 10^e}.
+     */
+    private static int digits(long f, int e, byte[] buffer, int position) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = JsonWriter.digitCount(f);
+        // the value is 0.d1d2...dn * 10^point
+        int point = length + e;
+        if (length <= point && point <= 21) {
+            position = JsonWriter.writeDigits(f, length, buffer, position);
+            for (int i = length; i < point; i++) buffer[position++] = '0';
+            return position;
+        }
+        if (0 < point && point <= 21) {
+            // write all digits, then move the fraction one to the right to make room for the point
+            int start = position;
+            position = JsonWriter.writeDigits(f, length, buffer, position);
+            System.arraycopy(buffer, start + point, buffer, start + point + 1, length - point);
+            buffer[start + point] = '.';
+            return position + 1;
+        }
+        if (-6 < point && point <= 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            for (int i = point; i < 0; i++) buffer[position++] = '0';
+            return JsonWriter.writeDigits(f, length, buffer, position);
+        }
+        int start = position;
+        position = JsonWriter.writeDigits(f, length, buffer, position + 1);
+        buffer[start] = buffer[start + 1];
+        if (length > 1) {
+            buffer[start + 1] = '.';
+        } else {
+            position--;
+        }
+        buffer[position++] = 'e';
+        int exponent = point - 1;
+        if (exponent < 0) {
+            buffer[position++] = '-';
+            exponent = -exponent;
+        }
+        return JsonWriter.writeDigits(exponent, JsonWriter.digitCount(exponent), buffer, position);
+    }
+
+    private static int floorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int floorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static long[] powersOfTen() {
+        long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger g;
+            if (k <= 0) { // 10^-k is an integer
+                BigInteger power = BigInteger.TEN.pow(-k);
+                int r = power.bitLength() - 126;
+                g = (r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r)).add(BigInteger.ONE);
+            } else {
+                BigInteger power = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(power.bitLength() + 125).divide(power).add(BigInteger.ONE);
+            }
+            int index = 2 * (k - K_MIN);
+            table[index] = g.shiftRight(63).longValue();
+            table[index + 1] = g.and(mask).longValue();
+        }
+        return table;
+    }
+
+    private DoubleFormatter() {
+        //
+    }
+}
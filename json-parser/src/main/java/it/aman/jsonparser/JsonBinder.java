@@ -0,0 +1,501 @@
+package it.aman.jsonparser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fills plain Java objects straight from the {@link Lexer}'s tokens, without building a {@link JsonValue} tree first.
+ * <p>
+ * The first time a class is bound, a plan is built for it and cached in a {@link ClassValue}: a
+ * {@link MethodHandle} for its no-argument constructor, and one setter handle per field in a hash table keyed by
+ * the field name. After that, binding an object only looks up each key in the table, using the raw characters of the
+ * key so no key {@link String} is created, and calls the setter. Members without a matching field are skipped.
+ * <p>
+ * Every non-static, non-transient, non-final field is bound, whatever its visibility, including inherited ones.
+ * Supported field types are primitives and their wrappers, {@link String}, {@link BigDecimal}, {@link BigInteger},
+ * enums (by constant name), arrays, {@link List}, {@link Set} and {@link Collection}, {@link Map} with string keys,
+ * {@link JsonValue} (and {@link Object}, bound as a {@link JsonValue}), and other classes, which are bound the same
+ * way. JSON {@code null} leaves primitive fields at their default and sets other fields to {@code null}.
+ * <p>
+ * Instances are thread-safe. Lexers come from a {@link LexerFactory}, so binding allocates little beyond the objects
+ * being filled.
+ */
+public final class JsonBinder {
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return new Plan(type);
+        }
+    };
+
+    private final LexerFactory lexers;
+
+    public JsonBinder() {
+        this(new LexerFactory());
+    }
+
+    public JsonBinder(LexerFactory lexers) {
+        this.lexers = lexers;
+    }
+
+    /**
+     * Validates {@code json} and binds it to a new instance of {@code type}.
+     * @throws ParseException when {@code json} is not valid JSON or a value does not fit the field it is bound to
+     * @throws IllegalArgumentException when {@code type} cannot be bound, for example without a no-argument constructor
+     */
+    public <T> T read(String json, Class<T> type) throws ParseException {
+        Lexer lexer = lexers.lexer(json);
+        lexer.parse();
+        Cursor cursor = new Cursor(lexer);
+        @SuppressWarnings("unchecked")
+        T value = (T) cursor.read(type);
+        return value;
+    }
+
+    /**
+     * Binding plan of one class.
+     */
+    private static final class Plan {
+        private final Class<?> type;
+        private final MethodHandle constructor;
+        /**
+         * Open-addressing hash table of the properties by name.
+         */
+        private final Property[] table;
+        private final int mask;
+
+        Plan(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+                throw new IllegalArgumentException("Cannot bind objects to " + type.getName());
+            }
+            this.type = type;
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                Constructor<?> c = type.getDeclaredConstructor();
+                c.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException(type.getName() + " needs an accessible no-argument constructor", e);
+            }
+
+            List<Property> properties = new ArrayList<>();
+            Set<String> names = new LinkedHashSet<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers)
+                            || field.isSynthetic() || !names.add(field.getName())) {
+                        continue; // fields of subclasses hide those of superclasses
+                    }
+                    properties.add(new Property(field, lookup));
+                }
+            }
+            int slots = Integer.highestOneBit(Math.max(1, properties.size()) * 2 - 1) << 1;
+            this.table = new Property[slots];
+            this.mask = slots - 1;
+            for (Property property : properties) {
+                int slot = spread(property.name.hashCode()) & mask;
+                while (table[slot] != null) slot = (slot + 1) & mask;
+                table[slot] = property;
+            }
+        }
+
+        /**
+         * @return the property named by the raw (still escaped) key text in {@code [start, end)}, or {@code null}
+         */
+        Property find(char[] source, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                char c = source[i];
+                if (c == '\\') return find(StringDecoder.decode(source, start, end));
+                hash = 31 * hash + c;
+            }
+            for (int slot = spread(hash) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+                if (table[slot].matches(source, start, end)) return table[slot];
+            }
+            return null;
+        }
+
+        private Property find(String name) {
+            for (int slot = spread(name.hashCode()) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+                if (table[slot].name.equals(name)) return table[slot];
+            }
+            return null;
+        }
+
+        Object newInstance() {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot create " + type.getName(), e);
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private enum Kind {
+        INT, LONG, SHORT, BYTE, CHAR, DOUBLE, FLOAT, BOOLEAN, OBJECT
+    }
+
+    /**
+     * A bindable field: its name and a setter adapted to take any target object, so it can be called with
+     * {@link MethodHandle#invokeExact} and primitive values are never boxed.
+     */
+    private static final class Property {
+        final String name;
+        final Kind kind;
+        final Type type;
+        final MethodHandle setter;
+
+        Property(Field field, MethodHandles.Lookup lookup) {
+            this.name = field.getName();
+            this.type = field.getGenericType();
+            Class<?> raw = field.getType();
+            this.kind = kind(raw);
+            try {
+                field.setAccessible(true);
+                Class<?> value = raw.isPrimitive() ? raw : Object.class;
+                this.setter = lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, value));
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Cannot bind field " + field, e);
+            }
+        }
+
+        boolean matches(char[] source, int start, int end) {
+            if (end - start != name.length()) return false;
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != source[start + i]) return false;
+            }
+            return true;
+        }
+
+        private static Kind kind(Class<?> raw) {
+            if (raw == int.class) return Kind.INT;
+            if (raw == long.class) return Kind.LONG;
+            if (raw == short.class) return Kind.SHORT;
+            if (raw == byte.class) return Kind.BYTE;
+            if (raw == char.class) return Kind.CHAR;
+            if (raw == double.class) return Kind.DOUBLE;
+            if (raw == float.class) return Kind.FLOAT;
+            if (raw == boolean.class) return Kind.BOOLEAN;
+            return Kind.OBJECT;
+        }
+    }
+
+    /**
+     * Walks the tokens of one document.
+     */
+    private static final class Cursor {
+        private final Lexer lexer;
+        private final TokenStore tokens;
+        private final char[] source;
+        private int index;
+
+        Cursor(Lexer lexer) {
+            this.lexer = lexer;
+            this.tokens = lexer.getTokens();
+            this.source = tokens.source();
+        }
+
+        /**
+         * Reads the value at the cursor as {@code type} and moves past it.
+         */
+        Object read(Type type) throws ParseException {
+            Class<?> raw = rawType(type);
+            Lexer.Type token = tokens.type(index);
+            if (token == Lexer.Type.NULL && !raw.isPrimitive()) {
+                index++;
+                return null;
+            }
+            if (raw == String.class) return string();
+            if (raw == int.class || raw == Integer.class) return (int) integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            if (raw == long.class || raw == Long.class) return integer(Long.MIN_VALUE, Long.MAX_VALUE);
+            if (raw == double.class || raw == Double.class) return floating();
+            if (raw == boolean.class || raw == Boolean.class) return bool();
+            if (raw == short.class || raw == Short.class) return (short) integer(Short.MIN_VALUE, Short.MAX_VALUE);
+            if (raw == byte.class || raw == Byte.class) return (byte) integer(Byte.MIN_VALUE, Byte.MAX_VALUE);
+            if (raw == float.class || raw == Float.class) return floatValue();
+            if (raw == char.class || raw == Character.class) return character();
+            if (raw == BigDecimal.class) return bigDecimal();
+            if (raw == BigInteger.class) return bigInteger();
+            if (raw.isEnum()) return enumConstant(raw);
+            if (raw == Object.class || JsonValue.class.isAssignableFrom(raw)) return tree(raw);
+            if (raw.isArray()) return array(type, raw);
+            if (Map.class.isAssignableFrom(raw)) return map(type, raw);
+            if (Collection.class.isAssignableFrom(raw)) return collection(type, raw);
+            return object(PLANS.get(raw));
+        }
+
+        private Object object(Plan plan) throws ParseException {
+            expect(Lexer.Type.BEGIN_OBJECT, "an object");
+            Object target = plan.newInstance();
+            while (true) {
+                Lexer.Type token = tokens.type(index++);
+                if (token == Lexer.Type.CLOSE_OBJECT) return target;
+                if (token == Lexer.Type.COMMA) continue;
+                Property property = plan.find(source, tokens.start(index - 1), tokens.end(index - 1));
+                index++; // colon
+                if (property == null) {
+                    skip();
+                } else {
+                    set(property, target);
+                }
+            }
+        }
+
+        private void set(Property property, Object target) throws ParseException {
+            if (tokens.type(index) == Lexer.Type.NULL && property.kind != Kind.OBJECT) {
+                index++; // primitives keep their default
+                return;
+            }
+            try {
+                switch (property.kind) {
+                    case INT:
+                        property.setter.invokeExact(target, (int) integer(Integer.MIN_VALUE, Integer.MAX_VALUE));
+                        break;
+                    case LONG:
+                        property.setter.invokeExact(target, integer(Long.MIN_VALUE, Long.MAX_VALUE));
+                        break;
+                    case SHORT:
+                        property.setter.invokeExact(target, (short) integer(Short.MIN_VALUE, Short.MAX_VALUE));
+                        break;
+                    case BYTE:
+                        property.setter.invokeExact(target, (byte) integer(Byte.MIN_VALUE, Byte.MAX_VALUE));
+                        break;
+                    case CHAR:
+                        property.setter.invokeExact(target, character());
+                        break;
+                    case DOUBLE:
+                        property.setter.invokeExact(target, floating());
+                        break;
+                    case FLOAT:
+                        property.setter.invokeExact(target, floatValue());
+                        break;
+                    case BOOLEAN:
+                        property.setter.invokeExact(target, bool());
+                        break;
+                    default:
+                        property.setter.invokeExact(target, read(property.type));
+                }
+            } catch (ParseException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot set field " + property.name, e);
+            }
+        }
+
+        private Object array(Type type, Class<?> raw) throws ParseException {
+            Type component = type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            List<Object> values = new ArrayList<>();
+            readElements(component, values);
+            Object array = Array.newInstance(raw.getComponentType(), values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value != null || !raw.getComponentType().isPrimitive()) Array.set(array, i, value);
+            }
+            return array;
+        }
+
+        private Collection<Object> collection(Type type, Class<?> raw) throws ParseException {
+            Collection<Object> values;
+            if (raw.isAssignableFrom(ArrayList.class)) {
+                values = new ArrayList<>();
+            } else if (raw.isAssignableFrom(LinkedHashSet.class)) {
+                values = new LinkedHashSet<>();
+            } else {
+                throw new IllegalArgumentException("Cannot bind collections to " + raw.getName());
+            }
+            readElements(typeArgument(type, 0), values);
+            return values;
+        }
+
+        private void readElements(Type element, Collection<Object> values) throws ParseException {
+            expect(Lexer.Type.BEGIN_ARRAY, "an array");
+            while (true) {
+                Lexer.Type token = tokens.type(index);
+                if (token == Lexer.Type.CLOSE_ARRAY) {
+                    index++;
+                    return;
+                }
+                if (token == Lexer.Type.COMMA) {
+                    index++;
+                    continue;
+                }
+                values.add(read(element));
+            }
+        }
+
+        private Map<String, Object> map(Type type, Class<?> raw) throws ParseException {
+            if (!raw.isAssignableFrom(LinkedHashMap.class)) {
+                throw new IllegalArgumentException("Cannot bind maps to " + raw.getName());
+            }
+            if (rawType(typeArgument(type, 0)) != String.class && rawType(typeArgument(type, 0)) != Object.class) {
+                throw new IllegalArgumentException("Map keys must be strings: " + type);
+            }
+            Type valueType = typeArgument(type, 1);
+            expect(Lexer.Type.BEGIN_OBJECT, "an object");
+            Map<String, Object> values = new LinkedHashMap<>();
+            while (true) {
+                Lexer.Type token = tokens.type(index++);
+                if (token == Lexer.Type.CLOSE_OBJECT) return values;
+                if (token == Lexer.Type.COMMA) continue;
+                String key = StringDecoder.decode(source, tokens.start(index - 1), tokens.end(index - 1));
+                index++; // colon
+                values.put(key, read(valueType));
+            }
+        }
+
+        /**
+         * Builds a tree of the value from a copy of its text, so it does not depend on the lexer's reused buffer.
+         */
+        private Object tree(Class<?> raw) throws ParseException {
+            int from = index;
+            skip();
+            boolean string = tokens.type(from) == Lexer.Type.STRING;
+            int start = tokens.start(from) - (string ? 1 : 0);
+            int end = tokens.end(index - 1) + (string ? 1 : 0);
+            JsonValue value = JsonValue.parse(new String(source, start, end - start));
+            if (!raw.isInstance(value)) throw error("Expected " + raw.getSimpleName(), from);
+            return value;
+        }
+
+        /**
+         * Moves past the value at the cursor, including everything nested in it.
+         */
+        private void skip() {
+            int depth = 0;
+            do {
+                Lexer.Type token = tokens.type(index++);
+                if (token == Lexer.Type.BEGIN_OBJECT || token == Lexer.Type.BEGIN_ARRAY) depth++;
+                else if (token == Lexer.Type.CLOSE_OBJECT || token == Lexer.Type.CLOSE_ARRAY) depth--;
+            } while (depth > 0);
+        }
+
+        private String string() throws ParseException {
+            expect(Lexer.Type.STRING, "a string");
+            return StringDecoder.decode(source, tokens.start(index - 1), tokens.end(index - 1));
+        }
+
+        private char character() throws ParseException {
+            String value = string();
+            if (value.length() != 1) throw error("Expected a single character", index - 1);
+            return value.charAt(0);
+        }
+
+        private long integer(long min, long max) throws ParseException {
+            number();
+            try {
+                long value = NumberParser.parseLong(source, tokens.start(index - 1), tokens.end(index - 1));
+                if (value >= min && value <= max) return value;
+            } catch (NumberFormatException e) {
+                // fraction, exponent or too large for a long
+            }
+            throw error("Expected an integer between " + min + " and " + max, index - 1);
+        }
+
+        private double floating() throws ParseException {
+            number();
+            return NumberParser.parseDouble(source, tokens.start(index - 1), tokens.end(index - 1));
+        }
+
+        private float floatValue() throws ParseException {
+            number();
+            // parsing the text directly avoids rounding twice through double
+            return Float.parseFloat(new String(source, tokens.start(index - 1), numberLength()));
+        }
+
+        private BigDecimal bigDecimal() throws ParseException {
+            number();
+            return new BigDecimal(source, tokens.start(index - 1), numberLength());
+        }
+
+        private BigInteger bigInteger() throws ParseException {
+            number();
+            try {
+                return new BigDecimal(source, tokens.start(index - 1), numberLength()).toBigIntegerExact();
+            } catch (ArithmeticException e) {
+                throw error("Expected an integer", index - 1);
+            }
+        }
+
+        private boolean bool() throws ParseException {
+            Lexer.Type token = tokens.type(index);
+            if (token != Lexer.Type.TRUE && token != Lexer.Type.FALSE) throw error("Expected a boolean", index);
+            index++;
+            return token == Lexer.Type.TRUE;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object enumConstant(Class<?> raw) throws ParseException {
+            String name = string();
+            try {
+                return Enum.valueOf((Class) raw, name);
+            } catch (IllegalArgumentException e) {
+                throw error("Unknown " + raw.getSimpleName() + " constant " + name, index - 1);
+            }
+        }
+
+        /**
+         * Moves past the number at the cursor.
+         */
+        private void number() throws ParseException {
+            expect(Lexer.Type.NUMBER, "a number");
+        }
+
+        /**
+         * @return the length of the token just passed
+         */
+        private int numberLength() {
+            return tokens.end(index - 1) - tokens.start(index - 1);
+        }
+
+        private void expect(Lexer.Type type, String description) throws ParseException {
+            if (tokens.type(index) != type) throw error("Expected " + description, index);
+            index++;
+        }
+
+        private JsonParseException error(String reason, int token) {
+            return lexer.errorAt(reason, tokens.start(token));
+        }
+
+        private static Class<?> rawType(Type type) {
+            if (type instanceof Class) return (Class<?>) type;
+            if (type instanceof ParameterizedType) return rawType(((ParameterizedType) type).getRawType());
+            if (type instanceof GenericArrayType) {
+                return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+            }
+            if (type instanceof WildcardType) return rawType(((WildcardType) type).getUpperBounds()[0]);
+            return Object.class; // type variable
+        }
+
+        private static Type typeArgument(Type type, int index) {
+            if (!(type instanceof ParameterizedType)) return Object.class;
+            return ((ParameterizedType) type).getActualTypeArguments()[index];
+        }
+    }
+}
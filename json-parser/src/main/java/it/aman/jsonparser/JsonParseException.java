@@ -0,0 +1,145 @@
+package it.aman.jsonparser;
+
+import java.nio.CharBuffer;
+import java.text.ParseException;
+
+/**
+ * Error found in a document, located by offset, line and column.
+ * <p>
+ * Parsers only keep track of their offset while scanning. Line and column are worked out from the input when the
+ * exception is created, so valid documents pay nothing for them. The context is a window of the input around the
+ * error. It is a view, not a copy, so it reflects later changes to a reused input buffer.
+ * <p>
+ * Offsets are absolute positions in the input buffer, lines and columns are 1-based and relative to the start of the
+ * document. Columns count {@code char}s for character input and bytes for byte input.
+ */
+public class JsonParseException extends ParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Characters of context taken before and after the error.
+     */
+    static final int CONTEXT_LENGTH = 20;
+
+    private final String reason;
+    private final long offset;
+    private final long line;
+    private final long column;
+    private final transient CharSequence context;
+
+    JsonParseException(String reason, long offset, long line, long column, CharSequence context) {
+        super(reason + " at line " + line + ", column " + column, (int) Math.min(offset, Integer.MAX_VALUE));
+        this.reason = reason;
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+        this.context = context;
+    }
+
+    /**
+     * @param start  offset of the first character of the document
+     * @param offset offset of the error
+     * @param end    offset one past the last character of the document
+     */
+    static JsonParseException at(String reason, char[] input, int start, int offset, int end) {
+        long line = 1;
+        int lineStart = start;
+        for (int i = start; i < Math.min(offset, end); i++) {
+            if (input[i] == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        int from = Math.max(start, offset - CONTEXT_LENGTH);
+        int to = Math.min(end, offset + CONTEXT_LENGTH);
+        return new JsonParseException(reason, offset, line, offset - lineStart + 1, CharBuffer.wrap(input, from, to - from));
+    }
+
+    /**
+     * Like {@link #at(String, char[], int, int, int)} for UTF-8 input; the context shows every byte as one character.
+     */
+    static JsonParseException at(String reason, byte[] input, int start, int offset, int end) {
+        long line = 1;
+        int lineStart = start;
+        for (int i = start; i < Math.min(offset, end); i++) {
+            if (input[i] == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        int from = Math.max(start, offset - CONTEXT_LENGTH);
+        int to = Math.min(end, offset + CONTEXT_LENGTH);
+        return new JsonParseException(reason, offset, line, offset - lineStart + 1, new ByteView(input, from, to));
+    }
+
+    /**
+     * @return the description of the error, without its position
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the offset of the error; unlike {@link #getErrorOffset()} it does not saturate past 2 GB of input
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public long getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the input around the error, or an empty sequence once deserialized
+     */
+    public CharSequence getContext() {
+        return context != null ? context : "";
+    }
+
+    /**
+     * Read-only view of bytes as ISO-8859-1 characters.
+     */
+    private static final class ByteView implements CharSequence {
+        private final byte[] bytes;
+        private final int from;
+        private final int to;
+
+        ByteView(byte[] bytes, int from, int to) {
+            this.bytes = bytes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) throw new IndexOutOfBoundsException("Index " + index);
+            return (char) (bytes[from + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException("Range " + start + ", " + end);
+            }
+            return new ByteView(bytes, from + start, from + end);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length()];
+            for (int i = 0; i < chars.length; i++) chars[i] = charAt(i);
+            return new String(chars);
+        }
+    }
+}
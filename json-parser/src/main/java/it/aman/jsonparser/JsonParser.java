@@ -1,18 +1,58 @@
 package it.aman.jsonparser;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Validates a JSON file.
+ * <pre>
+ *   JsonParser [--index | --ndjson [--fail-fast]] [file]
+ * </pre>
+ * By default the file is streamed through {@link JsonReader}. With {@code --index} it is read into memory and
+ * validated by the two-stage {@link StructuralValidator}, which is faster but needs the whole file in memory.
+ * With {@code --ndjson} every line is validated as its own document by {@link NdjsonValidator}, which prints
+ * the invalid lines and a summary; {@code --fail-fast} stops at the first invalid line.
+ */
 public class JsonParser {
 
+    private static final String DEFAULT_FILE = "json-parser/src/main/resources/tests/step4/valid3.json";
+
     public static void main(String[] args) {
 
         try {
-            Path path = Paths.get("json-parser/src/main/resources/tests/step4/valid3.json");
-            List<String> lines = Files.readAllLines(path);
-            new Lexer(String.join("", lines)).parseArray();
+            boolean indexed = false;
+            boolean ndjson = false;
+            boolean failFast = false;
+            String file = DEFAULT_FILE;
+            for (String arg : args) {
+                if ("--index".equals(arg)) indexed = true;
+                else if ("--ndjson".equals(arg)) ndjson = true;
+                else if ("--fail-fast".equals(arg)) failFast = true;
+                else file = arg;
+            }
+            Path path = Paths.get(file);
+            if (ndjson) {
+                NdjsonValidator.Summary summary = new NdjsonValidator(ForkJoinPool.commonPool(),
+                        NdjsonValidator.DEFAULT_CHUNK_SIZE, NdjsonValidator.DEFAULT_MAX_ERRORS, failFast).validate(path);
+                for (NdjsonValidator.LineError error : summary.getErrors()) {
+                    System.err.println(error);
+                }
+                System.out.println(summary);
+                return;
+            }
+            if (indexed) {
+                new StructuralValidator().validate(Files.readAllBytes(path));
+                return;
+            }
+            try (InputStream in = Files.newInputStream(path);
+                 JsonReader reader = new JsonReader(in)) {
+                while (reader.next() != null) {
+                    // validate only
+                }
+            }
         } catch (Exception ignore) {
             ignore.printStackTrace();
         }
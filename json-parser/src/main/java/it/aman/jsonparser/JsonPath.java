@@ -0,0 +1,280 @@
+package it.aman.jsonparser;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled path selecting values from a document, for example {@code $.user.id} or {@code $.items[*].price}.
+ * <p>
+ * Supported segments: {@code .name}, {@code ['name']}, {@code .*}, {@code [index]} and {@code [*]}.
+ * <p>
+ * {@link #select(String)} scans the document once and only descends into members and elements matched by the path,
+ * one level per path segment, so its nesting is bounded by the path rather than by the document. Everything else is
+ * skipped by bracket matching, without decoding values or building a tree. Only the selected values become
+ * {@link JsonValue}s. The document is assumed to be valid; skipped parts are not validated.
+ */
+public final class JsonPath {
+
+    private static final int ANY = -1;
+
+    private final String path;
+    /**
+     * Member name per segment, {@code null} for array segments and wildcards.
+     */
+    private final String[] names;
+    /**
+     * Array index per segment, {@link #ANY} for wildcards, ignored for member segments.
+     */
+    private final int[] indexes;
+
+    private JsonPath(String path, String[] names, int[] indexes) {
+        this.path = path;
+        this.names = names;
+        this.indexes = indexes;
+    }
+
+    public static JsonPath compile(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw new IllegalArgumentException("Path must start with '$': " + path);
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int i = 1;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                while (i < path.length() && path.charAt(i) != '.' && path.charAt(i) != '[') i++;
+                String name = path.substring(start, i);
+                if (name.isEmpty()) throw new IllegalArgumentException("Empty member name in " + path);
+                names.add("*".equals(name) ? null : name);
+                indexes.add(ANY);
+            } else if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) throw new IllegalArgumentException("Unclosed '[' in " + path);
+                String inner = path.substring(i + 1, close).trim();
+                if ("*".equals(inner)) {
+                    names.add(null);
+                    indexes.add(ANY);
+                } else if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)) {
+                    names.add(inner.substring(1, inner.length() - 1));
+                    indexes.add(ANY);
+                } else if (Util.isNumeric(inner)) {
+                    names.add(null);
+                    indexes.add(Integer.parseInt(inner));
+                } else {
+                    throw new IllegalArgumentException("Invalid segment [" + inner + "] in " + path);
+                }
+                i = close + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in " + path);
+            }
+        }
+        int[] indexArray = new int[indexes.size()];
+        for (int k = 0; k < indexArray.length; k++) indexArray[k] = indexes.get(k);
+        return new JsonPath(path, names.toArray(new String[0]), indexArray);
+    }
+
+    /**
+     * @return the values selected by this path, in document order
+     */
+    public List<JsonValue> select(String json) throws ParseException {
+        if (json == null || json.isEmpty()) {
+            throw new IllegalArgumentException("JSON string cannot be null");
+        }
+        Scanner scanner = new Scanner(json.toCharArray());
+        List<JsonValue> selected = new ArrayList<>();
+        scanner.removeWhitespace();
+        scanner.match(0, selected);
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * Cursor over the document that descends along the path and skips everything else.
+     */
+    private final class Scanner {
+        private final char[] buffer;
+        private int position;
+
+        Scanner(char[] buffer) {
+            this.buffer = buffer;
+        }
+
+        void match(int segment, List<JsonValue> selected) throws ParseException {
+            if (segment == names.length) {
+                selected.add(capture());
+                return;
+            }
+            char c = peek();
+            boolean arraySegment = names[segment] == null && indexes[segment] != ANY;
+            boolean wildcard = names[segment] == null && indexes[segment] == ANY;
+            if (c == Lexer.BEGIN_OBJECT && !arraySegment) {
+                matchMembers(segment, selected);
+            } else if (c == Lexer.BEGIN_ARRAY && (arraySegment || wildcard)) {
+                matchElements(segment, selected);
+            } else {
+                skipValue();
+            }
+        }
+
+        private void matchMembers(int segment, List<JsonValue> selected) throws ParseException {
+            position++; // skip opening
+            removeWhitespace();
+            if (peek() == Lexer.CLOSE_OBJECT) {
+                position++;
+                return;
+            }
+            while (true) {
+                removeWhitespace();
+                if (peek() != Lexer.QUOTE) throw error("Key parsing error");
+                int keyStart = position + 1;
+                skipString();
+                int keyEnd = position - 1;
+                removeWhitespace();
+                if (peek() != Lexer.COLON) throw error("Wrong format. Missing colon");
+                position++;
+                removeWhitespace();
+                if (names[segment] == null || keyEquals(keyStart, keyEnd, names[segment])) {
+                    match(segment + 1, selected);
+                } else {
+                    skipValue();
+                }
+                if (!nextMember(Lexer.CLOSE_OBJECT)) return;
+            }
+        }
+
+        private void matchElements(int segment, List<JsonValue> selected) throws ParseException {
+            position++; // skip opening
+            removeWhitespace();
+            if (peek() == Lexer.CLOSE_ARRAY) {
+                position++;
+                return;
+            }
+            int index = 0;
+            while (true) {
+                removeWhitespace();
+                if (indexes[segment] == ANY || indexes[segment] == index) {
+                    match(segment + 1, selected);
+                } else {
+                    skipValue();
+                }
+                index++;
+                if (!nextMember(Lexer.CLOSE_ARRAY)) return;
+            }
+        }
+
+        /**
+         * Consumes the separator after a member or element.
+         * @return {@code true} when another member follows, {@code false} when the container was closed
+         */
+        private boolean nextMember(char close) throws ParseException {
+            removeWhitespace();
+            char c = peek();
+            position++;
+            if (c == Lexer.COMMA) return true;
+            if (c == close) return false;
+            throw error("Expected ',' or '" + close + "'");
+        }
+
+        private JsonValue capture() throws ParseException {
+            int start = position;
+            char c = peek();
+            skipValue();
+            int end = position;
+            switch (c) {
+                case Lexer.QUOTE:
+                    return new JsonValue.JsonString(buffer, start + 1, end - 1);
+                case 't':
+                    return JsonValue.JsonBoolean.TRUE;
+                case 'f':
+                    return JsonValue.JsonBoolean.FALSE;
+                case 'n':
+                    return JsonValue.JsonNull.INSTANCE;
+                case Lexer.BEGIN_OBJECT:
+                case Lexer.BEGIN_ARRAY:
+                    Lexer lexer = new Lexer(buffer, start, end - start);
+                    lexer.parse();
+                    return JsonValue.build(lexer.getTokens(), 0, lexer.getTokens().size());
+                default:
+                    return new JsonValue.JsonNumber(buffer, start, end);
+            }
+        }
+
+        /**
+         * Moves past the value under the cursor. Objects and arrays are skipped by counting brackets outside strings.
+         */
+        private void skipValue() throws ParseException {
+            char c = peek();
+            if (c == Lexer.QUOTE) {
+                skipString();
+                return;
+            }
+            if (c != Lexer.BEGIN_OBJECT && c != Lexer.BEGIN_ARRAY) {
+                while (position < buffer.length && !isDelimiter(buffer[position])) position++;
+                return;
+            }
+            int depth = 0;
+            while (position < buffer.length) {
+                char current = buffer[position];
+                if (current == Lexer.QUOTE) {
+                    skipString();
+                    continue;
+                }
+                position++;
+                if (current == Lexer.BEGIN_OBJECT || current == Lexer.BEGIN_ARRAY) {
+                    depth++;
+                } else if ((current == Lexer.CLOSE_OBJECT || current == Lexer.CLOSE_ARRAY) && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("Unexpected EOF");
+        }
+
+        private void skipString() throws ParseException {
+            position++; // skip opening quote
+            while (position < buffer.length) {
+                char c = buffer[position++];
+                if (c == Lexer.QUOTE) return;
+                if (c == '\\') position++;
+            }
+            throw error("Unterminated string");
+        }
+
+        private boolean keyEquals(int start, int end, String name) {
+            if (end - start == name.length()) {
+                int i = 0;
+                while (i < name.length() && buffer[start + i] == name.charAt(i)) i++;
+                if (i == name.length()) return true;
+                if (buffer[start + i] != '\\') return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == '\\') return new JsonValue.JsonString(buffer, start, end).contentEquals(name);
+            }
+            return false;
+        }
+
+        private char peek() throws ParseException {
+            if (position >= buffer.length) throw error("Unexpected EOF");
+            return buffer[position];
+        }
+
+        void removeWhitespace() {
+            while (position < buffer.length && Character.isWhitespace(buffer[position])) position++;
+        }
+
+        private boolean isDelimiter(char c) {
+            return c == Lexer.COMMA || c == Lexer.CLOSE_OBJECT || c == Lexer.CLOSE_ARRAY || Character.isWhitespace(c);
+        }
+
+        private JsonParseException error(String message) {
+            return JsonParseException.at(message, buffer, 0, position, buffer.length);
+        }
+    }
+}
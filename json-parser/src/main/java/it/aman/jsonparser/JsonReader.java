@@ -0,0 +1,461 @@
+package it.aman.jsonparser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import static it.aman.jsonparser.Lexer.BEGIN_ARRAY;
+import static it.aman.jsonparser.Lexer.BEGIN_OBJECT;
+import static it.aman.jsonparser.Lexer.CLOSE_ARRAY;
+import static it.aman.jsonparser.Lexer.CLOSE_OBJECT;
+import static it.aman.jsonparser.Lexer.COLON;
+import static it.aman.jsonparser.Lexer.COMMA;
+import static it.aman.jsonparser.Lexer.QUOTE;
+
+/**
+ * Pull parser that validates a JSON document while reading it from a {@link Reader} in fixed-size chunks.
+ * <p>
+ * Every call to {@link #next()} returns the next event ({@link Lexer.Type#BEGIN_OBJECT}, {@link Lexer.Type#STRING},
+ * {@link Lexer.Type#NUMBER}, ...) or {@code null} once the document has been fully read. Separators are checked
+ * but not reported. Object keys are reported as {@link Lexer.Type#STRING} with {@link #isName()} set.
+ * <p>
+ * Memory use is bounded by the chunk size, the nesting depth and the longest single string or number,
+ * never by the size of the document. Nesting deeper than {@link Lexer#DEFAULT_MAX_DEPTH}, or the limit given to
+ * {@link #JsonReader(Reader, int, int)}, is rejected as a parse error.
+ */
+public class JsonReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int EOF = -1;
+
+    private static final byte IN_ARRAY = 0;
+    private static final byte IN_OBJECT = 1;
+
+    private static final int DOCUMENT_START = 0;
+    private static final int FIRST_IN_ARRAY = 1;
+    private static final int FIRST_IN_OBJECT = 2;
+    private static final int AFTER_NAME = 3;
+    private static final int AFTER_VALUE = 4;
+    private static final int DOCUMENT_END = 5;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final int maxDepth;
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    /**
+     * Line of the current position and offset where it starts. Outside strings, which cannot hold raw line breaks,
+     * line breaks are whitespace, so only {@link #skipWhitespace()} has to look for them.
+     */
+    private long line = 1;
+    private long lineStart;
+
+    private byte[] stack = new byte[32];
+    private int depth;
+    private int state = DOCUMENT_START;
+
+    private final KeyCache keys = new KeyCache();
+    private char[] value = new char[64];
+    private int valueLength;
+    private Lexer.Type current;
+    private boolean name;
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonReader(Reader reader, int bufferSize) {
+        this(reader, bufferSize, Lexer.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth the deepest nesting of objects and arrays accepted
+     */
+    public JsonReader(Reader reader, int bufferSize, int maxDepth) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader cannot be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Maximum depth must be positive");
+        }
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Advances to the next event of the document.
+     * @return the type of the event or {@code null} when the document has been completely read
+     * @throws ParseException when the input is not valid JSON
+     */
+    public Lexer.Type next() throws IOException, ParseException {
+        name = false;
+        int c = skipWhitespace();
+        switch (state) {
+            case DOCUMENT_START:
+                if (c == EOF) throw error("Empty document");
+                return current = readValue(c);
+            case FIRST_IN_ARRAY:
+                if (c == CLOSE_ARRAY) return current = close(IN_ARRAY);
+                return current = readValue(c);
+            case FIRST_IN_OBJECT:
+                if (c == CLOSE_OBJECT) return current = close(IN_OBJECT);
+                return current = readName(c);
+            case AFTER_NAME:
+                if (c != COLON) throw error("Wrong format. Missing colon");
+                position++;
+                return current = readValue(skipWhitespace());
+            case AFTER_VALUE:
+                return current = readAfterValue(c);
+            default:
+                if (c != EOF) throw error("Unexpected content after the end of the document");
+                return current = null;
+        }
+    }
+
+    private Lexer.Type readAfterValue(int c) throws IOException, ParseException {
+        byte container = stack[depth - 1];
+        if (c == COMMA) {
+            position++;
+            int n = skipWhitespace();
+            return container == IN_OBJECT ? readName(n) : readValue(n);
+        }
+        if (container == IN_OBJECT && c == CLOSE_OBJECT) return close(IN_OBJECT);
+        if (container == IN_ARRAY && c == CLOSE_ARRAY) return close(IN_ARRAY);
+        throw error(c == EOF ? "Unexpected EOF" : "Expected ',' or closing bracket");
+    }
+
+    private Lexer.Type readName(int c) throws IOException, ParseException {
+        if (c != QUOTE) throw error("Key parsing error");
+        position++;
+        readString();
+        name = true;
+        state = AFTER_NAME;
+        return Lexer.Type.STRING;
+    }
+
+    private Lexer.Type readValue(int c) throws IOException, ParseException {
+        switch (c) {
+            case BEGIN_OBJECT:
+                push(IN_OBJECT);
+                position++;
+                state = FIRST_IN_OBJECT;
+                return Lexer.Type.BEGIN_OBJECT;
+            case BEGIN_ARRAY:
+                push(IN_ARRAY);
+                position++;
+                state = FIRST_IN_ARRAY;
+                return Lexer.Type.BEGIN_ARRAY;
+            case QUOTE:
+                position++;
+                readString();
+                state = afterValue();
+                return Lexer.Type.STRING;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                readNumber();
+                state = afterValue();
+                return Lexer.Type.NUMBER;
+            case 't':
+                readLiteral("true");
+                state = afterValue();
+                return Lexer.Type.TRUE;
+            case 'f':
+                readLiteral("false");
+                state = afterValue();
+                return Lexer.Type.FALSE;
+            case 'n':
+                readLiteral("null");
+                state = afterValue();
+                return Lexer.Type.NULL;
+            case EOF:
+                throw error("Unexpected EOF");
+            default:
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private Lexer.Type close(byte container) {
+        position++;
+        depth--;
+        state = afterValue();
+        return container == IN_OBJECT ? Lexer.Type.CLOSE_OBJECT : Lexer.Type.CLOSE_ARRAY;
+    }
+
+    private int afterValue() {
+        return depth == 0 ? DOCUMENT_END : AFTER_VALUE;
+    }
+
+    private void push(byte container) throws ParseException {
+        if (depth == maxDepth) {
+            throw error("Maximum nesting depth of " + maxDepth + " exceeded");
+        }
+        if (depth == stack.length) stack = Arrays.copyOf(stack, Math.min(depth * 2, maxDepth));
+        stack[depth++] = container;
+    }
+
+    /**
+     * Reads the string into {@link #value}, keeping escapes as they are while checking them, then decodes it in place
+     * with {@link StringDecoder}, so strings decode exactly as in the other APIs.
+     */
+    private void readString() throws IOException, ParseException {
+        valueLength = 0;
+        boolean escaped = false;
+        while (true) {
+            if (position == limit && !fill()) throw error("Unterminated string");
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == QUOTE || c == '\\' || c < 0x20) break;
+                position++;
+            }
+            append(buffer, start, position - start);
+            if (position == limit) continue;
+
+            char c = buffer[position++];
+            if (c == QUOTE) {
+                if (escaped) valueLength = StringDecoder.decodeTo(value, 0, valueLength, value, 0);
+                return;
+            }
+            if (c < 0x20) {
+                position--;
+                throw error("Control character in string");
+            }
+            append(c);
+            readEscape();
+            escaped = true;
+        }
+    }
+
+    /**
+     * Checks and copies the escape sequence after a backslash.
+     */
+    private void readEscape() throws IOException, ParseException {
+        int c = read();
+        switch (c) {
+            case QUOTE:
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                append((char) c);
+                break;
+            case 'u':
+                append('u');
+                for (int i = 0; i < 4; i++) {
+                    int digit = read();
+                    if (StringDecoder.hexDigit(digit) < 0) throw error("Invalid unicode escape");
+                    append((char) digit);
+                }
+                break;
+            default:
+                throw error("Unknown escape character");
+        }
+    }
+
+    /**
+     * Errors are reported at the start of the number, like the {@link Lexer} does.
+     */
+    private void readNumber() throws IOException, ParseException {
+        long start = bufferOffset + position;
+        valueLength = 0;
+        if (peek() == '-') append((char) read());
+        if (peek() == '0') {
+            append((char) read());
+        } else if (!readDigits()) {
+            throw error("Invalid number format", start);
+        }
+        if (peek() == '.') {
+            append((char) read());
+            if (!readDigits()) throw error("Invalid number format", start);
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            append((char) read());
+            if (peek() == '+' || peek() == '-') append((char) read());
+            if (!readDigits()) throw error("Invalid number format", start);
+        }
+    }
+
+    private boolean readDigits() throws IOException {
+        int start = valueLength;
+        while (peek() >= '0' && peek() <= '9') append((char) read());
+        return valueLength > start;
+    }
+
+    private void readLiteral(String literal) throws IOException, ParseException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) throw error("Wrong value, expected " + literal);
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return EOF;
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            position++;
+            if (c == '\n') {
+                line++;
+                lineStart = bufferOffset + position;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return EOF;
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return EOF;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        limit = n;
+        return true;
+    }
+
+    private void append(char c) {
+        if (valueLength == value.length) value = Arrays.copyOf(value, valueLength * 2);
+        value[valueLength++] = c;
+    }
+
+    private void append(char[] source, int from, int count) {
+        if (valueLength + count > value.length) {
+            value = Arrays.copyOf(value, Math.max(value.length * 2, valueLength + count));
+        }
+        System.arraycopy(source, from, value, valueLength, count);
+        valueLength += count;
+    }
+
+    private JsonParseException error(String message) {
+        return error(message, bufferOffset + position);
+    }
+
+    /**
+     * Reports an error at {@code offset} on the current line. The context is taken from the current buffer only, as
+     * earlier input is gone.
+     */
+    private JsonParseException error(String message, long offset) {
+        int at = (int) Math.max(0, offset - bufferOffset);
+        int from = Math.max(0, at - JsonParseException.CONTEXT_LENGTH);
+        int to = Math.min(limit, at + JsonParseException.CONTEXT_LENGTH);
+        CharBuffer context = CharBuffer.wrap(buffer, from, to - from);
+        return new JsonParseException(message, offset, line, offset - lineStart + 1, context);
+    }
+
+    /**
+     * @return the event returned by the last call to {@link #next()}
+     */
+    public Lexer.Type getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return {@code true} when the current {@link Lexer.Type#STRING} event is an object key
+     */
+    public boolean isName() {
+        return name;
+    }
+
+    /**
+     * @return the number of objects and arrays enclosing the current position
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the decoded text of the current string, key or number; keys are interned
+     */
+    public String getString() {
+        checkValue();
+        if (name) return keys.internChars(value, 0, valueLength);
+        return new String(value, 0, valueLength);
+    }
+
+    public long getLong() {
+        checkNumber();
+        return NumberParser.parseLong(value, 0, valueLength);
+    }
+
+    public double getDouble() {
+        checkNumber();
+        return NumberParser.parseDouble(value, 0, valueLength);
+    }
+
+    public BigDecimal getBigDecimal() {
+        checkNumber();
+        return new BigDecimal(value, 0, valueLength);
+    }
+
+    public boolean getBoolean() {
+        if (current != Lexer.Type.TRUE && current != Lexer.Type.FALSE) {
+            throw new IllegalStateException("Current event is not a boolean: " + current);
+        }
+        return current == Lexer.Type.TRUE;
+    }
+
+    /**
+     * Skips the current object or array, including everything nested in it.
+     * Does nothing for scalar values.
+     */
+    public void skipChildren() throws IOException, ParseException {
+        if (current != Lexer.Type.BEGIN_OBJECT && current != Lexer.Type.BEGIN_ARRAY) return;
+        int target = depth - 1;
+        while (depth > target) {
+            if (next() == null) throw error("Unexpected EOF");
+        }
+    }
+
+    private void checkValue() {
+        if (current != Lexer.Type.STRING && current != Lexer.Type.NUMBER) {
+            throw new IllegalStateException("Current event has no text: " + current);
+        }
+    }
+
+    private void checkNumber() {
+        if (current != Lexer.Type.NUMBER) {
+            throw new IllegalStateException("Current event is not a number: " + current);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,491 @@
+package it.aman.jsonparser;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Node of a JSON document tree.
+ * <p>
+ * The tree is built from the tokens of a validated {@link Lexer}. String and number nodes only keep offsets into the
+ * source buffer and are decoded the first time their value is requested, so reading a few fields of a large
+ * document costs little more than validating it.
+ */
+public abstract class JsonValue {
+
+    public enum Kind {
+        OBJECT,
+        ARRAY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL
+    }
+
+    /**
+     * Shared by all trees so repeated field names are decoded once across documents.
+     */
+    private static final KeyCache KEYS = new KeyCache();
+
+    JsonValue() {
+    }
+
+    /**
+     * Validates {@code json} and builds its tree.
+     */
+    public static JsonValue parse(String json) throws ParseException {
+        Lexer lexer = new Lexer(json);
+        lexer.parse();
+        return build(lexer.getTokens(), 0, lexer.getTokens().size());
+    }
+
+    public abstract Kind getKind();
+
+    public boolean isObject() {
+        return getKind() == Kind.OBJECT;
+    }
+
+    public boolean isArray() {
+        return getKind() == Kind.ARRAY;
+    }
+
+    public boolean isString() {
+        return getKind() == Kind.STRING;
+    }
+
+    public boolean isNumber() {
+        return getKind() == Kind.NUMBER;
+    }
+
+    public boolean isBoolean() {
+        return getKind() == Kind.BOOLEAN;
+    }
+
+    public boolean isNull() {
+        return getKind() == Kind.NULL;
+    }
+
+    public JsonObject asObject() {
+        throw new IllegalStateException("Not an object: " + getKind());
+    }
+
+    public JsonArray asArray() {
+        throw new IllegalStateException("Not an array: " + getKind());
+    }
+
+    public String asString() {
+        throw new IllegalStateException("Not a string: " + getKind());
+    }
+
+    public JsonNumber asNumber() {
+        throw new IllegalStateException("Not a number: " + getKind());
+    }
+
+    public boolean asBoolean() {
+        throw new IllegalStateException("Not a boolean: " + getKind());
+    }
+
+    /**
+     * Builds the tree for the tokens in {@code [from, to)}, which must hold exactly one value.
+     * Uses an explicit stack so nesting depth is not limited by the thread stack.
+     */
+    static JsonValue build(TokenStore tokens, int from, int to) {
+        char[] source = tokens.source();
+        List<Container> stack = new ArrayList<>();
+        JsonValue root = null;
+        for (int i = from; i < to; i++) {
+            Lexer.Type type = tokens.type(i);
+            JsonValue value;
+            switch (type) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    stack.add(new Container(type == Lexer.Type.BEGIN_OBJECT));
+                    continue;
+                case CLOSE_OBJECT:
+                case CLOSE_ARRAY:
+                    value = stack.remove(stack.size() - 1).toValue();
+                    break;
+                case STRING:
+                    if (!stack.isEmpty() && stack.get(stack.size() - 1).expectsKey()) {
+                        stack.get(stack.size() - 1).key = new JsonString(source, tokens.start(i), tokens.end(i), KEYS);
+                        continue;
+                    }
+                    value = new JsonString(source, tokens.start(i), tokens.end(i));
+                    break;
+                case NUMBER:
+                    value = new JsonNumber(source, tokens.start(i), tokens.end(i));
+                    break;
+                case TRUE:
+                    value = JsonBoolean.TRUE;
+                    break;
+                case FALSE:
+                    value = JsonBoolean.FALSE;
+                    break;
+                case NULL:
+                    value = JsonNull.INSTANCE;
+                    break;
+                default:
+                    continue; // separators carry no value
+            }
+            if (stack.isEmpty()) {
+                root = value;
+            } else {
+                stack.get(stack.size() - 1).add(value);
+            }
+        }
+        if (root == null) {
+            throw new IllegalStateException("Tokens do not hold a complete value");
+        }
+        return root;
+    }
+
+    /**
+     * Object or array being assembled by {@link #build(TokenStore, int, int)}.
+     */
+    private static class Container {
+        final boolean object;
+        final List<JsonValue> values = new ArrayList<>();
+        final List<JsonString> keys;
+        JsonString key;
+
+        Container(boolean object) {
+            this.object = object;
+            this.keys = object ? new ArrayList<JsonString>() : null;
+        }
+
+        boolean expectsKey() {
+            return object && key == null;
+        }
+
+        void add(JsonValue value) {
+            if (object) {
+                keys.add(key);
+                key = null;
+            }
+            values.add(value);
+        }
+
+        JsonValue toValue() {
+            JsonValue[] members = values.toArray(new JsonValue[0]);
+            return object ? new JsonObject(keys.toArray(new JsonString[0]), members) : new JsonArray(members);
+        }
+    }
+
+    public static final class JsonObject extends JsonValue implements Iterable<Map.Entry<String, JsonValue>> {
+
+        /**
+         * Objects with more members than this get a hash index on the first lookup; smaller ones are scanned.
+         */
+        private static final int INDEX_THRESHOLD = 8;
+
+        private final JsonString[] keys;
+        private final JsonValue[] values;
+        private Map<String, Integer> index;
+
+        JsonObject(JsonString[] keys, JsonValue[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.OBJECT;
+        }
+
+        @Override
+        public JsonObject asObject() {
+            return this;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public String getKey(int i) {
+            return keys[i].asString();
+        }
+
+        public JsonValue getValue(int i) {
+            return values[i];
+        }
+
+        /**
+         * @return the value of the last member called {@code name}, or {@code null} when there is none
+         */
+        public JsonValue get(String name) {
+            if (values.length > INDEX_THRESHOLD) {
+                Integer i = index().get(name);
+                return i == null ? null : values[i];
+            }
+            for (int i = values.length - 1; i >= 0; i--) {
+                if (keys[i].contentEquals(name)) return values[i];
+            }
+            return null;
+        }
+
+        public boolean has(String name) {
+            return get(name) != null;
+        }
+
+        private Map<String, Integer> index() {
+            if (index == null) {
+                Map<String, Integer> map = new HashMap<>(values.length * 2);
+                for (int i = 0; i < keys.length; i++) map.put(keys[i].asString(), i);
+                index = map;
+            }
+            return index;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, JsonValue>> iterator() {
+            return new Iterator<Map.Entry<String, JsonValue>>() {
+                private int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < values.length;
+                }
+
+                @Override
+                public Map.Entry<String, JsonValue> next() {
+                    int current = i++;
+                    return new AbstractMap.SimpleImmutableEntry<>(getKey(current), values[current]);
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("{");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append(',');
+                builder.append(keys[i]).append(':').append(values[i]);
+            }
+            return builder.append('}').toString();
+        }
+    }
+
+    public static final class JsonArray extends JsonValue implements Iterable<JsonValue> {
+
+        private final JsonValue[] elements;
+
+        JsonArray(JsonValue[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.ARRAY;
+        }
+
+        @Override
+        public JsonArray asArray() {
+            return this;
+        }
+
+        public int size() {
+            return elements.length;
+        }
+
+        public JsonValue get(int i) {
+            return elements[i];
+        }
+
+        public List<JsonValue> values() {
+            return Collections.unmodifiableList(Arrays.asList(elements));
+        }
+
+        @Override
+        public Iterator<JsonValue> iterator() {
+            return values().iterator();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < elements.length; i++) {
+                if (i > 0) builder.append(',');
+                builder.append(elements[i]);
+            }
+            return builder.append(']').toString();
+        }
+    }
+
+    /**
+     * String node holding the offsets of the raw (still escaped) text between the quotes.
+     */
+    public static final class JsonString extends JsonValue {
+
+        private final char[] source;
+        private final int start;
+        private final int end;
+        private final KeyCache cache;
+        private String value;
+
+        JsonString(char[] source, int start, int end) {
+            this(source, start, end, null);
+        }
+
+        /**
+         * @param cache interns the decoded value, used for object keys
+         */
+        JsonString(char[] source, int start, int end, KeyCache cache) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.cache = cache;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.STRING;
+        }
+
+        @Override
+        public String asString() {
+            if (value == null) {
+                value = cache == null ? StringDecoder.decode(source, start, end) : cache.intern(source, start, end);
+            }
+            return value;
+        }
+
+        /**
+         * @return the decoded text, a view over the source without copying when the string has no escapes
+         */
+        public CharSequence asCharSequence() {
+            return value != null ? value : StringDecoder.view(source, start, end);
+        }
+
+        /**
+         * Compares against the raw source without decoding when the string has no escapes.
+         */
+        boolean contentEquals(String other) {
+            if (value != null) return value.equals(other);
+            if (end - start != other.length()) return asString().equals(other);
+            for (int i = 0; i < other.length(); i++) {
+                char c = source[start + i];
+                if (c == '\\') return asString().equals(other);
+                if (c != other.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return '"' + new String(source, start, end - start) + '"';
+        }
+    }
+
+    /**
+     * Number node holding the offsets of its source text. Each representation is parsed on first access and cached,
+     * like the value of a {@link JsonString}.
+     */
+    public static final class JsonNumber extends JsonValue {
+
+        private final char[] source;
+        private final int start;
+        private final int end;
+        /**
+         * Parsed on first use. The boxes are immutable, so a thread that sees one also sees its value, and threads
+         * racing on the same tree at worst parse twice.
+         */
+        private Long longValue;
+        private Double doubleValue;
+        private BigDecimal bigDecimalValue;
+
+        JsonNumber(char[] source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.NUMBER;
+        }
+
+        @Override
+        public JsonNumber asNumber() {
+            return this;
+        }
+
+        public long longValue() {
+            Long value = longValue;
+            if (value == null) longValue = value = NumberParser.parseLong(source, start, end);
+            return value;
+        }
+
+        public int intValue() {
+            return Math.toIntExact(longValue());
+        }
+
+        public double doubleValue() {
+            Double value = doubleValue;
+            if (value == null) doubleValue = value = NumberParser.parseDouble(source, start, end);
+            return value;
+        }
+
+        public BigDecimal bigDecimalValue() {
+            BigDecimal value = bigDecimalValue;
+            if (value == null) bigDecimalValue = value = new BigDecimal(source, start, end - start);
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return new String(source, start, end - start);
+        }
+    }
+
+    public static final class JsonBoolean extends JsonValue {
+
+        static final JsonBoolean TRUE = new JsonBoolean(true);
+        static final JsonBoolean FALSE = new JsonBoolean(false);
+
+        private final boolean value;
+
+        private JsonBoolean(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.BOOLEAN;
+        }
+
+        @Override
+        public boolean asBoolean() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static final class JsonNull extends JsonValue {
+
+        static final JsonNull INSTANCE = new JsonNull();
+
+        private JsonNull() {
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.NULL;
+        }
+
+        @Override
+        public String toString() {
+            return "null";
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package it.aman.jsonparser;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a JSON document as UTF-8 straight into a byte buffer, the counterpart of {@link JsonReader}.
+ * <p>
+ * Strings are escaped through a lookup table and encoded to UTF-8 character by character, longs and doubles are
+ * formatted in place (doubles as the shortest decimal that reads back to the same value, see
+ * {@link DoubleFormatter}), and object keys known in advance can be encoded once as {@link Name}s. Nothing goes
+ * through an intermediate {@link String}, so writing allocates nothing once the buffer has grown.
+ * <p>
+ * Without an {@link OutputStream} the buffer grows to hold the whole document, which can be taken with
+ * {@link #toByteArray()} or viewed with {@link #byteBuffer()}; {@link #reset()} then makes the writer ready for the
+ * next document, keeping its buffer. With an {@link OutputStream} the buffer is flushed to it whenever it fills up.
+ * <p>
+ * Calls are checked against the structure written so far, so the output is always well-formed; misplaced calls throw
+ * {@link IllegalStateException}. Instances are not thread-safe.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte IN_ARRAY = 0;
+    private static final byte IN_OBJECT = 1;
+
+    private static final int DOCUMENT_START = 0;
+    private static final int FIRST_IN_ARRAY = 1;
+    private static final int FIRST_IN_OBJECT = 2;
+    private static final int AFTER_NAME = 3;
+    private static final int AFTER_VALUE = 4;
+    private static final int DOCUMENT_END = 5;
+
+    /**
+     * For every ASCII character, the character following the backslash of its escape, {@code 'u'} for a six-character
+     * unicode escape, or 0 when it is written as is.
+     */
+    private static final byte[] ESCAPES = escapes();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * {@code "00"} to {@code "99"}, for writing numbers two digits at a time.
+     */
+    private static final byte[] DIGIT_PAIRS = digitPairs();
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+
+    private byte[] stack = new byte[32];
+    private int depth;
+    private int state = DOCUMENT_START;
+
+    /**
+     * Creates a writer that keeps the document in memory.
+     */
+    public JsonWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer that keeps the document in memory, starting with room for {@code capacity} bytes.
+     */
+    public JsonWriter(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        this.out = null;
+        this.buffer = new byte[Math.max(capacity, DoubleFormatter.MAX_LENGTH)];
+    }
+
+    public JsonWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferSize, DoubleFormatter.MAX_LENGTH)];
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(IN_OBJECT);
+        writeByte(Lexer.BEGIN_OBJECT);
+        state = FIRST_IN_OBJECT;
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        close(IN_OBJECT, FIRST_IN_OBJECT);
+        writeByte(Lexer.CLOSE_OBJECT);
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(IN_ARRAY);
+        writeByte(Lexer.BEGIN_ARRAY);
+        state = FIRST_IN_ARRAY;
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        close(IN_ARRAY, FIRST_IN_ARRAY);
+        writeByte(Lexer.CLOSE_ARRAY);
+        return this;
+    }
+
+    /**
+     * Writes the key of the next member of the current object.
+     */
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new IllegalArgumentException("Name cannot be null");
+        }
+        beforeName();
+        writeString(name);
+        writeByte(Lexer.COLON);
+        state = AFTER_NAME;
+        return this;
+    }
+
+    /**
+     * Writes a key encoded in advance, which is a plain copy.
+     */
+    public JsonWriter name(Name name) throws IOException {
+        beforeName();
+        byte[] bytes = name.bytes;
+        require(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        state = AFTER_NAME;
+        return this;
+    }
+
+    /**
+     * Writes a string, or {@code null} when {@code value} is null.
+     */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) return nullValue();
+        beforeValue();
+        writeString(value);
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        require(MIN_LONG.length);
+        if (value == Long.MIN_VALUE) {
+            System.arraycopy(MIN_LONG, 0, buffer, position, MIN_LONG.length);
+            position += MIN_LONG.length;
+        } else {
+            if (value < 0) {
+                buffer[position++] = '-';
+                value = -value;
+            }
+            position = writeDigits(value, digitCount(value), buffer, position);
+        }
+        afterValue();
+        return this;
+    }
+
+    /**
+     * Writes the shortest decimal that reads back as {@code value}.
+     * @throws IllegalArgumentException for NaN and infinities, which JSON cannot represent
+     */
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON cannot represent " + value);
+        }
+        beforeValue();
+        require(DoubleFormatter.MAX_LENGTH);
+        position = DoubleFormatter.write(value, buffer, position);
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeBytes(NULL);
+        afterValue();
+        return this;
+    }
+
+    /**
+     * @return the number of bytes buffered, which is the whole document so far for in-memory writers
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * @return a copy of the buffered bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * @return a read-only view of the buffered bytes, valid until the next write or {@link #reset()}
+     */
+    public ByteBuffer byteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, position).asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the buffered bytes to {@code out}.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    /**
+     * Discards the buffered bytes and the structure written so far, keeping the buffer for the next document.
+     */
+    public JsonWriter reset() {
+        position = 0;
+        depth = 0;
+        state = DOCUMENT_START;
+        return this;
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream, if any, and flushes it.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out == null) return;
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out == null) return;
+        flush();
+        out.close();
+    }
+
+    /**
+     * @return the buffered bytes decoded as UTF-8
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, position, StandardCharsets.UTF_8);
+    }
+
+    private void beforeValue() throws IOException {
+        switch (state) {
+            case DOCUMENT_START:
+            case FIRST_IN_ARRAY:
+            case AFTER_NAME:
+                return;
+            case AFTER_VALUE:
+                if (stack[depth - 1] == IN_ARRAY) {
+                    writeByte(Lexer.COMMA);
+                    return;
+                }
+                throw new IllegalStateException("Expected a name before the value");
+            case FIRST_IN_OBJECT:
+                throw new IllegalStateException("Expected a name before the value");
+            default:
+                throw new IllegalStateException("The document is already complete");
+        }
+    }
+
+    private void afterValue() {
+        state = depth == 0 ? DOCUMENT_END : AFTER_VALUE;
+    }
+
+    private void beforeName() throws IOException {
+        if (state == AFTER_VALUE && stack[depth - 1] == IN_OBJECT) {
+            writeByte(Lexer.COMMA);
+        } else if (state != FIRST_IN_OBJECT) {
+            throw new IllegalStateException("Names are only allowed inside objects, before a value");
+        }
+    }
+
+    private void close(byte container, int empty) {
+        if (depth == 0 || stack[depth - 1] != container || state != empty && state != AFTER_VALUE) {
+            throw new IllegalStateException("Nothing to close with a " + (container == IN_OBJECT ? "'}'" : "']'"));
+        }
+        depth--;
+        afterValue();
+    }
+
+    private void push(byte container) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = container;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte(Lexer.QUOTE);
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                if (escape == 0) {
+                    if (position == buffer.length) require(1);
+                    buffer[position++] = (byte) c;
+                } else if (escape == 'u') {
+                    writeUnicodeEscape(c);
+                } else {
+                    require(2);
+                    buffer[position++] = '\\';
+                    buffer[position++] = escape;
+                }
+            } else if (c < 0x800) {
+                require(2);
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                require(3);
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                require(4);
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // a lone surrogate has no UTF-8 encoding, but can still be escaped
+                writeUnicodeEscape(c);
+            }
+        }
+        writeByte(Lexer.QUOTE);
+    }
+
+    private void writeUnicodeEscape(char c) throws IOException {
+        require(6);
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[c >> 12];
+        buffer[position++] = HEX[c >> 8 & 0xF];
+        buffer[position++] = HEX[c >> 4 & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (position == buffer.length) require(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        require(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Makes room for {@code n} more bytes, flushing the buffer to the output stream or growing it.
+     */
+    private void require(int n) throws IOException {
+        if (buffer.length - position >= n) return;
+        if (out != null) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (buffer.length >= n) return;
+        }
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + n));
+    }
+
+    /**
+     * Writes the {@code length} digits of the non-negative {@code value}, two at a time from the last.
+     * @return the position after the last digit
+     */
+    static int writeDigits(long value, int length, byte[] buffer, int position) {
+        int end = position + length;
+        int i = end;
+        while (value >= 100) {
+            int pair = (int) (value % 100) << 1;
+            value /= 100;
+            buffer[--i] = DIGIT_PAIRS[pair + 1];
+            buffer[--i] = DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            int pair = (int) value << 1;
+            buffer[--i] = DIGIT_PAIRS[pair + 1];
+            buffer[--i] = DIGIT_PAIRS[pair];
+        } else {
+            buffer[--i] = (byte) ('0' + value);
+        }
+        return end;
+    }
+
+    /**
+     * @return the number of decimal digits of the non-negative {@code value}
+     */
+    static int digitCount(long value) {
+        int count = 1;
+        for (long limit = 10; count < 19 && value >= limit; limit *= 10) count++;
+        return count;
+    }
+
+    private static byte[] escapes() {
+        byte[] escapes = new byte[128];
+        for (int c = 0; c < 0x20; c++) escapes[c] = 'u';
+        escapes['\b'] = 'b';
+        escapes['\f'] = 'f';
+        escapes['\n'] = 'n';
+        escapes['\r'] = 'r';
+        escapes['\t'] = 't';
+        escapes['"'] = '"';
+        escapes['\\'] = '\\';
+        return escapes;
+    }
+
+    private static byte[] digitPairs() {
+        byte[] pairs = new byte[200];
+        for (int i = 0; i < 100; i++) {
+            pairs[2 * i] = (byte) ('0' + i / 10);
+            pairs[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+        return pairs;
+    }
+
+    /**
+     * Object key escaped and encoded once, with its quotes and colon, for writers that emit the same keys over and
+     * over. Instances are immutable and can be shared between threads, typically as constants.
+     */
+    public static final class Name {
+        private final String value;
+        private final byte[] bytes;
+
+        private Name(String value, byte[] bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+
+        public static Name of(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Name cannot be null");
+            }
+            JsonWriter writer = new JsonWriter(name.length() + 3);
+            try {
+                writer.writeString(name);
+                writer.writeByte(Lexer.COLON);
+            } catch (IOException e) {
+                throw new AssertionError("In-memory writers do not fail", e);
+            }
+            return new Name(name, writer.toByteArray());
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package it.aman.jsonparser;
+
+/**
+ * Bounded cache of decoded object keys.
+ * <p>
+ * Arrays of records repeat the same few field names over and over. Looking a raw key up here returns the
+ * {@link String} decoded the first time it was seen, so each name is decoded and allocated once instead of once per
+ * record. The cache is direct-mapped: a slot is chosen from the hash of the raw characters and a colliding key simply
+ * replaces the previous one, which keeps memory fixed no matter how many distinct keys a document has.
+ * <p>
+ * Lookups always compare the full content, so concurrent use can only cost extra misses, never wrong results.
+ */
+public final class KeyCache {
+
+    public static final int DEFAULT_SIZE = 1024;
+    /**
+     * Keys longer than this are decoded without caching.
+     */
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final String[] keys;
+    private final int mask;
+
+    public KeyCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size number of slots, rounded up to a power of two
+     */
+    public KeyCache(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        int slots = Integer.highestOneBit(size);
+        if (slots < size) slots <<= 1;
+        this.keys = new String[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * @return the decoded key for the raw (still escaped) string text in {@code [start, end)}
+     */
+    public String intern(char[] buffer, int start, int end) {
+        if (end - start > MAX_KEY_LENGTH || StringDecoder.indexOfEscape(buffer, start, end) != end) {
+            return StringDecoder.decode(buffer, start, end);
+        }
+        return lookup(buffer, start, end);
+    }
+
+    /**
+     * @return the key made of the already decoded characters in {@code [start, end)}
+     */
+    public String internChars(char[] chars, int start, int end) {
+        if (end - start > MAX_KEY_LENGTH) return new String(chars, start, end - start);
+        return lookup(chars, start, end);
+    }
+
+    private String lookup(char[] buffer, int start, int end) {
+        int length = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + buffer[i];
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        String cached = keys[slot];
+        if (cached != null && cached.length() == length && regionEquals(cached, buffer, start)) {
+            return cached;
+        }
+        String key = new String(buffer, start, length);
+        keys[slot] = key;
+        return key;
+    }
+
+    private static boolean regionEquals(String key, char[] buffer, int start) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != buffer[start + i]) return false;
+        }
+        return true;
+    }
+}
@@ -1,8 +1,7 @@
 package it.aman.jsonparser;
 
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Lexer {
@@ -16,32 +15,206 @@ public class Lexer {
     public static final char QUOTE = '"';
     public static final char COLON = ':';
 
-    private final List<Token> tokenList = new ArrayList<>();
-    private final LinkedList<Character> characterQueue = new LinkedList<>();
+    /**
+     * Objects and arrays nested deeper than this are rejected unless another limit is given.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 1000;
+
+    /**
+     * Returned by {@link #nextToken()} and {@link #consumeNextToken()} once the whole input has been read.
+     */
+    private static final int EOF = -1;
+    /**
+     * Rough number of input characters per token, used to size the token store up front.
+     */
+    private static final int CHARS_PER_TOKEN = 6;
+
+    private static final byte IN_ARRAY = 0;
+    private static final byte IN_OBJECT = 1;
+
+    private static final int EXPECT_VALUE = 0;
+    private static final int FIRST_IN_ARRAY = 1;
+    private static final int FIRST_IN_OBJECT = 2;
+    private static final int EXPECT_KEY = 3;
+    private static final int AFTER_KEY = 4;
+    private static final int AFTER_VALUE = 5;
+    private static final int VALUE_END = 6;
+
+    private char[] buffer;
+    /**
+     * Whether {@link #buffer} was allocated here and may be overwritten by {@link #reset(String)}.
+     */
+    private boolean ownsBuffer;
+    /**
+     * Index one past the last character to lex.
+     */
+    private int limit;
+    /**
+     * Index of the first character to lex, where line 1 starts.
+     */
+    private int documentStart;
+    private final TokenStore tokens;
+    private final int maxDepth;
+    private int position;
+    /**
+     * {@link #IN_OBJECT} or {@link #IN_ARRAY} for each open container, innermost last.
+     */
+    private byte[] stack = new byte[32];
+    private int depth;
 
     public Lexer(String input) {
+        this(input, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth the deepest nesting of objects and arrays accepted
+     */
+    public Lexer(String input, int maxDepth) {
+        this(maxDepth, 0);
+        reset(input);
+    }
+
+    /**
+     * Lexes {@code count} characters of {@code buffer} starting at {@code offset} without copying them.
+     * Token offsets are positions in {@code buffer}.
+     */
+    Lexer(char[] buffer, int offset, int count) {
+        this(DEFAULT_MAX_DEPTH, 0);
+        reset(buffer, offset, count);
+    }
+
+    /**
+     * Creates a lexer without input, to be given some with {@link #reset(String)}.
+     * @param capacity characters of input to allocate room for up front, along with their tokens
+     */
+    Lexer(int maxDepth, int capacity) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Maximum depth must be positive");
+        }
+        this.maxDepth = maxDepth;
+        this.buffer = new char[capacity];
+        this.ownsBuffer = true;
+        this.tokens = new TokenStore(buffer, capacity / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * Prepares this lexer for a new document, keeping the buffers allocated so far. The input is copied into the
+     * lexer's own buffer, which only grows when a document does not fit.
+     * <p>
+     * Tokens of the previous document, and anything built on top of them, are invalid afterwards.
+     * @return this lexer
+     */
+    public Lexer reset(String input) {
         if (input == null || input.isEmpty()) {
             throw new IllegalArgumentException("JSON string cannot be null");
         }
-        copy(input);
+        int length = input.length();
+        if (!ownsBuffer || buffer.length < length) {
+            buffer = new char[ownsBuffer ? Math.max(length, buffer.length * 2) : length];
+            ownsBuffer = true;
+        }
+        input.getChars(0, length, buffer, 0);
+        start(0, length);
+        return this;
     }
 
-    private void copy(String input) {
-        for (char c : input.toCharArray()) {
-            characterQueue.add(c);
+    /**
+     * Like {@link #reset(String)} but lexes {@code count} characters of {@code buffer} starting at {@code offset}
+     * in place, without copying them. Token offsets are positions in {@code buffer}.
+     * @return this lexer
+     */
+    public Lexer reset(char[] buffer, int offset, int count) {
+        if (offset < 0 || count <= 0 || offset + count > buffer.length) {
+            throw new IllegalArgumentException("Invalid range " + offset + ", " + count + " of " + buffer.length);
         }
+        this.buffer = buffer;
+        this.ownsBuffer = false;
+        start(offset, offset + count);
+        return this;
     }
 
+    private void start(int offset, int end) {
+        this.position = offset;
+        this.documentStart = offset;
+        this.limit = end;
+        this.depth = 0;
+        tokens.reset(buffer, (end - offset) / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * @return characters of input the current buffer holds, when the lexer owns it
+     */
+    int capacity() {
+        return ownsBuffer ? buffer.length : 0;
+    }
+
+    /**
+     * Parses the value under the cursor with an explicit container stack instead of recursion, so nesting costs one
+     * byte of heap per level rather than a thread stack frame, and input nested deeper than {@link #maxDepth} fails
+     * fast with the position of the offending bracket.
+     */
     private void parseValue() throws ParseException {
-        this.removeWhitespace();
-        if(this.nextToken() == null) return;
-        switch (this.nextToken()) {
+        depth = 0;
+        int state = EXPECT_VALUE;
+        while (state != VALUE_END) {
+            this.removeWhitespace();
+            int c = this.nextToken();
+            switch (state) {
+                case FIRST_IN_ARRAY:
+                    if (c == CLOSE_ARRAY) {
+                        state = close(Type.CLOSE_ARRAY);
+                        break;
+                    }
+                    // fall through: first element
+                case EXPECT_VALUE:
+                    state = parseScalarOrOpen(c);
+                    break;
+                case FIRST_IN_OBJECT:
+                    if (c == CLOSE_OBJECT) {
+                        state = close(Type.CLOSE_OBJECT);
+                        break;
+                    }
+                    // fall through: first key
+                case EXPECT_KEY:
+                    if (c != QUOTE) throw error("Key parsing error");
+                    parseString();
+                    state = AFTER_KEY;
+                    break;
+                case AFTER_KEY:
+                    if (c != COLON) throw error("Wrong format. Missing colon");
+                    this.consumeSeparator(Type.COLON);
+                    state = EXPECT_VALUE;
+                    break;
+                default: // AFTER_VALUE
+                    byte container = stack[depth - 1];
+                    if (c == COMMA) {
+                        this.consumeSeparator(Type.COMMA);
+                        state = container == IN_OBJECT ? EXPECT_KEY : EXPECT_VALUE;
+                    } else if (container == IN_OBJECT && c == CLOSE_OBJECT) {
+                        state = close(Type.CLOSE_OBJECT);
+                    } else if (container == IN_ARRAY && c == CLOSE_ARRAY) {
+                        state = close(Type.CLOSE_ARRAY);
+                    } else {
+                        throw error(c == EOF ? "Unexpected EOF" : "Expected ',' or closing bracket");
+                    }
+            }
+        }
+    }
+
+    /**
+     * Parses a scalar, or opens an object or array, starting with {@code c}.
+     * @return the state following it
+     */
+    private int parseScalarOrOpen(int c) throws ParseException {
+        switch (c) {
             case BEGIN_OBJECT:
-                parseObject();
-                break;
+                push(IN_OBJECT);
+                this.consumeSeparator(Type.BEGIN_OBJECT);
+                return FIRST_IN_OBJECT;
             case BEGIN_ARRAY:
-                parseArray();
-                break;
+                push(IN_ARRAY);
+                this.consumeSeparator(Type.BEGIN_ARRAY);
+                return FIRST_IN_ARRAY;
             case QUOTE:
                 parseString();
                 break;
@@ -67,152 +240,206 @@ public class Lexer {
             case 'n':
                 parseNull();
                 break;
-            case COMMA:
-                this.consumeNextToken();
-                break;
+            case EOF:
+                throw error("Unexpected EOF");
             default:
-                throw new ParseException("Parse exception at " + getErrorSection(), 0);
+                throw error("Unexpected character '" + (char) c + "'");
         }
+        return afterValue();
     }
 
-    private String getErrorSection() {
-        StringBuilder builder = new StringBuilder();
-        for(int i =0; i < 20; i++){
-            if(this.nextToken() != null) builder.append(this.consumeNextToken());
+    private int afterValue() {
+        return depth == 0 ? VALUE_END : AFTER_VALUE;
+    }
+
+    private void push(byte container) throws ParseException {
+        if (depth == maxDepth) {
+            throw error("Maximum nesting depth of " + maxDepth + " exceeded");
         }
-        return builder.toString();
+        if (depth == stack.length) stack = Arrays.copyOf(stack, Math.min(depth * 2, maxDepth));
+        stack[depth++] = container;
     }
 
-    public void parseObject() throws ParseException {
-        this.consumeNextToken(); // skip opening
-        while(!isNextToken(CLOSE_OBJECT) && this.nextToken() != null) {
-            this.parseKey();
-            if(!isNextToken(COLON)) {
-                throw new RuntimeException("Wrong format. Missing colon.");
-            }
-            this.consumeNextToken(); // remove :
-            this.parseValue();
+    private int close(Type type) {
+        this.consumeSeparator(type);
+        depth--;
+        return afterValue();
+    }
 
-            if(!isNextToken(COMMA) && !isNextToken(CLOSE_OBJECT)) {
-                throw new RuntimeException("Unexpected EOF.");
-            }
+    /**
+     * Parses a complete document: a single value surrounded by optional whitespace.
+     */
+    public void parse() throws ParseException {
+        this.removeWhitespace();
+        if (this.nextToken() == EOF) {
+            throw error("Empty document");
+        }
+        this.parseValue();
+        this.removeWhitespace();
+        if (this.nextToken() != EOF) {
+            throw error("Unexpected content after the end of the document");
         }
-        this.consumeNextToken();
     }
 
+    /**
+     * Parses the object under the cursor; whatever follows it is left unread.
+     */
+    public void parseObject() throws ParseException {
+        parseContainer(BEGIN_OBJECT);
+    }
+
+    /**
+     * Parses the array under the cursor; whatever follows it is left unread.
+     */
     public void parseArray() throws ParseException {
-        this.consumeNextToken(); // skip opening
-        while(!isNextToken(CLOSE_ARRAY) && this.nextToken() != null) {
-            if (isNextToken(BEGIN_OBJECT)) parseObject();
-            else parseValue();
-        }
-        this.consumeNextToken();
+        parseContainer(BEGIN_ARRAY);
     }
 
-    private boolean isNextToken(char c) {
+    private void parseContainer(char open) throws ParseException {
         this.removeWhitespace();
-        Character cc = this.nextToken();
-        return cc != null && cc == c;
+        if (this.nextToken() != open) {
+            throw error("Expected '" + open + "'");
+        }
+        this.parseValue();
     }
 
-    private Character nextToken() {
-        return characterQueue.peek();
+    /**
+     * Peeks the character under the cursor without moving it.
+     * @return the character or {@link #EOF} when the input is exhausted
+     */
+    private int nextToken() {
+        return position < limit ? buffer[position] : EOF;
     }
 
-    private Character consumeNextToken() {
-        return characterQueue.poll();
+    /**
+     * Returns the character under the cursor and advances past it.
+     * @return the character or {@link #EOF} when the input is exhausted
+     */
+    private int consumeNextToken() {
+        return position < limit ? buffer[position++] : EOF;
+    }
+
+    /**
+     * Consumes the single character under the cursor and records it as a token of the given type.
+     */
+    private void consumeSeparator(Type type) {
+        if (position < limit) {
+            tokens.add(type, position, position + 1);
+            position++;
+        }
     }
 
     private void removeWhitespace() {
-        while (this.nextToken() != null && Character.isWhitespace(this.nextToken())) this.consumeNextToken();
+        while (position < limit && Character.isWhitespace(buffer[position])) position++;
     }
 
-    private void parseKey() throws ParseException {
-        if (isNextToken(COMMA)) { // a comma after an object inside a parent obj
-            this.removeWhitespace();
-            this.consumeNextToken();
-        }
-        this.removeWhitespace();
-        if(this.consumeNextToken() != QUOTE) {// skip `"`
-            throw new RuntimeException("Key parsing error");
-        }
-        while (!isNextToken(QUOTE)) {
-            if (this.isControlChar()) {
-                throw new RuntimeException("Wrong key value");
-            }
-            this.consumeNextToken();
-        }
-        this.consumeNextToken(); // skip last `"`
+    private void parseTrue() throws ParseException {
+        parseStringEquals("true", Type.TRUE);
     }
 
-    private void parseTrue() {
-        parseStringEquals("true");
+    private void parseFalse() throws ParseException {
+        parseStringEquals("false", Type.FALSE);
     }
 
-    private void parseFalse() {
-        parseStringEquals("false");
+    private void parseNull() throws ParseException {
+        parseStringEquals("null", Type.NULL);
     }
 
-    private void parseNull() {
-        parseStringEquals("null");
+    private void parseStringEquals(String compare, Type type) throws ParseException {
+        int start = position;
+        while (this.nextToken() != EOF && Character.isLetter(this.nextToken())) {
+            this.consumeNextToken();
+        }
+        if (!matches(start, compare)) {
+            String value = new String(buffer, start, position - start);
+            throw error(String.format("Wrong value: %s vs %s", value, compare), start);
+        }
+        tokens.add(type, start, position);
     }
 
-    private void parseStringEquals(String compare) {
-        StringBuilder value = new StringBuilder();
-        while (this.nextToken() != null && Character.isLetter(this.nextToken())) {
-            value.append(this.consumeNextToken());
+    private boolean matches(int start, String compare) {
+        if (position - start != compare.length()) return false;
+        for (int i = 0; i < compare.length(); i++) {
+            if (buffer[start + i] != compare.charAt(i)) return false;
         }
-        if (!compare.contentEquals(value))
-            throw new RuntimeException(String.format("Wrong value: %s vs %s", value, compare));
+        return true;
     }
 
-    private void parseNumber() {
-        int dotCount = 0;
-        while (this.nextToken() != null && (Character.isDigit(this.nextToken())) || (DOT == this.nextToken())) {
-            if (DOT == this.nextToken() && ++dotCount > 1){
-                throw new RuntimeException("Invalid number format.");
-            }
-            this.consumeNextToken();
+    private void parseNumber() throws ParseException {
+        int start = position;
+        int end = NumberParser.scan(buffer, position, limit);
+        if (end < 0) {
+            throw error("Invalid number format", start);
         }
+        position = end;
+        tokens.add(Type.NUMBER, start, position);
     }
 
     private void parseString() throws ParseException {
         this.consumeNextToken(); // skip `"`
-        while (this.nextToken() != null && (this.nextToken()) != QUOTE) {
-            if (this.isControlChar()) {
-                this.consumeNextToken();
-                this.consumeNextToken();
+        int start = position;
+        this.skipStringContent();
+        tokens.add(Type.STRING, start, position);
+        this.consumeNextToken(); // skip last `"`
+    }
+
+    /**
+     * Moves the cursor to the closing quote of the string it is in, checking escapes and control characters.
+     */
+    private void skipStringContent() throws ParseException {
+        while (position < limit) {
+            char c = buffer[position];
+            if (c == QUOTE) return;
+            if (c < 0x20) {
+                throw error("Control character in string");
+            }
+            if (c == '\\') {
+                position += escapeLength();
                 continue;
             }
-            this.consumeNextToken();
+            position++;
         }
-        this.consumeNextToken(); // skip last `"`
+        throw error("Unterminated string");
     }
 
-    private boolean isControlChar() throws ParseException {
-        Character currentChar = this.nextToken();
-        if (null == currentChar) return false;
-        if (currentChar == '\\' && characterQueue.size() > 1) {
-            char nextChar = characterQueue.get(1);
-            switch (nextChar) {
-                case QUOTE:
-                case '\'':
-                case '\\':
-                case 't':
-                case 'n':
-                case 'r':
-                case 'f':
-                case 'b':
-                    return true;
-                default:
-                    throw new ParseException("Unknown escape character.", 0);
-            }
+    private int escapeLength() throws ParseException {
+        try {
+            return StringDecoder.escapeLength(buffer, position, limit);
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
         }
-        return false;
     }
 
+    private JsonParseException error(String reason) {
+        return error(reason, position);
+    }
+
+    /**
+     * Only the offset is tracked while lexing; line, column and context are worked out here, once, on failure.
+     */
+    private JsonParseException error(String reason, int offset) {
+        return JsonParseException.at(reason, buffer, documentStart, offset, limit);
+    }
+
+    /**
+     * Reports a problem found later, while consuming the tokens, at {@code offset} of the current document.
+     */
+    JsonParseException errorAt(String reason, int offset) {
+        return error(reason, offset);
+    }
+
+    /**
+     * @return the tokens recognized so far, materialized as {@link Token} objects on access
+     */
     public List<Token> getTokenList() {
-        return tokenList;
+        return tokens.asList();
+    }
+
+    /**
+     * @return the tokens recognized so far in their compact columnar form
+     */
+    public TokenStore getTokens() {
+        return tokens;
     }
 
     public enum Type {
@@ -238,6 +465,14 @@ public class Lexer {
             this.c = c;
         }
 
+        public Type getType() {
+            return t;
+        }
+
+        public String getText() {
+            return c;
+        }
+
         public boolean isBeginObject() {
             return Type.BEGIN_OBJECT == t;
         }
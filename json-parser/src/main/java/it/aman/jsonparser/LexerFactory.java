@@ -0,0 +1,114 @@
+package it.aman.jsonparser;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe source of reusable {@link Lexer}s, for services lexing many small documents.
+ * <p>
+ * {@link #lexer(String)} hands out one lexer per thread, valid until the same thread asks for the next one.
+ * {@link #acquire(String)} and {@link #release(Lexer)} share a bounded pool instead, which suits virtual threads and
+ * executors whose threads come and go. Either way a lexer keeps its input buffer, token store and container stack
+ * between documents, so once they have grown to the usual document size lexing allocates nothing. A document longer
+ * than the retention limit gets a lexer of its own that is never kept, and a lexer that still grew past the limit is
+ * replaced on its thread's next call or not taken back into the pool. A thread done with lexing can drop its lexer
+ * with {@link #clear()}.
+ */
+public final class LexerFactory {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_RETAINED_CHARS = 1024 * 1024;
+    public static final int DEFAULT_MAX_POOLED = 256;
+
+    private final int maxDepth;
+    private final int capacity;
+    private final int maxRetainedChars;
+    private final int maxPooled;
+    private final ThreadLocal<Lexer> lexers = new ThreadLocal<Lexer>() {
+        @Override
+        protected Lexer initialValue() {
+            return newLexer();
+        }
+    };
+    private final Queue<Lexer> pool = new ConcurrentLinkedQueue<>();
+    /**
+     * Size of {@link #pool}, which a concurrent queue cannot tell cheaply.
+     */
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public LexerFactory() {
+        this(Lexer.DEFAULT_MAX_DEPTH, DEFAULT_CAPACITY, DEFAULT_MAX_RETAINED_CHARS, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param maxDepth         the deepest nesting accepted by the lexers
+     * @param capacity         characters of input every new lexer allocates room for, along with their tokens
+     * @param maxRetainedChars lexers whose buffer grew beyond this are not reused
+     * @param maxPooled        how many released lexers the pool keeps
+     */
+    public LexerFactory(int maxDepth, int capacity, int maxRetainedChars, int maxPooled) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Maximum depth must be positive");
+        }
+        if (capacity < 0 || maxRetainedChars < capacity) {
+            throw new IllegalArgumentException("Capacity must be between 0 and the retention limit");
+        }
+        this.maxDepth = maxDepth;
+        this.capacity = capacity;
+        this.maxRetainedChars = maxRetainedChars;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return the calling thread's lexer, reset to {@code input}, or a lexer used only for {@code input} when it is
+     * longer than the retention limit
+     */
+    public Lexer lexer(String input) {
+        if (input != null && input.length() > maxRetainedChars) return newLexer().reset(input);
+        Lexer lexer = lexers.get();
+        if (lexer.capacity() > maxRetainedChars) {
+            lexer = newLexer();
+            lexers.set(lexer);
+        }
+        return lexer.reset(input);
+    }
+
+    /**
+     * Drops the calling thread's lexer, along with its buffers and tokens; the next {@link #lexer(String)} call on
+     * this thread starts with a new one.
+     */
+    public void clear() {
+        lexers.remove();
+    }
+
+    /**
+     * @return a lexer from the pool, or a new one when the pool is empty, reset to {@code input}; hand it back with
+     * {@link #release(Lexer)} once its tokens are no longer needed
+     */
+    public Lexer acquire(String input) {
+        Lexer lexer = pool.poll();
+        if (lexer != null) {
+            pooled.decrementAndGet();
+        } else {
+            lexer = newLexer();
+        }
+        return lexer.reset(input);
+    }
+
+    /**
+     * Returns {@code lexer} to the pool. It must not be used by the caller afterwards.
+     */
+    public void release(Lexer lexer) {
+        if (lexer.capacity() > maxRetainedChars) return;
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(lexer);
+    }
+
+    private Lexer newLexer() {
+        return new Lexer(maxDepth, capacity);
+    }
+}
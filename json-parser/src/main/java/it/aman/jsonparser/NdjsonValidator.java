@@ -0,0 +1,276 @@
+package it.aman.jsonparser;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates newline-delimited JSON (one document per line) on all cores.
+ * <p>
+ * The file is memory-mapped and cut into chunks of roughly {@link #DEFAULT_CHUNK_SIZE} bytes. A chunk owns every line
+ * that starts inside it, so chunk borders never split a record. Chunks are validated on a {@link ForkJoinPool};
+ * a call keeps a small pool of workers, each with one {@link StructuralValidator} and one chunk buffer, that its tasks
+ * take and give back, so there are never more buffers than chunks in flight and all of them are dropped when the call
+ * returns.
+ * Blank lines are skipped but still counted for line numbers.
+ * <p>
+ * In fail-fast mode validation stops at the first invalid record: chunks after the one holding it are abandoned and
+ * the summary only covers the lines up to and including it.
+ */
+public class NdjsonValidator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ERRORS = 1000;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final boolean failFast;
+
+    public NdjsonValidator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * @param maxErrors how many {@link LineError}s to keep; further invalid lines are only counted
+     */
+    public NdjsonValidator(ForkJoinPool pool, int chunkSize, int maxErrors) {
+        this(pool, chunkSize, maxErrors, false);
+    }
+
+    /**
+     * @param failFast whether to stop at the first invalid record
+     */
+    public NdjsonValidator(ForkJoinPool pool, int chunkSize, int maxErrors, boolean failFast) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.failFast = failFast;
+    }
+
+    public Summary validate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            // index of the first chunk known to hold an invalid record, later chunks can give up
+            AtomicInteger firstInvalid = new AtomicInteger(Integer.MAX_VALUE);
+            Queue<Worker> workers = new ConcurrentLinkedQueue<>();
+            for (long start = 0; start < size; start += chunkSize) {
+                final int index = tasks.size();
+                final long from = start;
+                final long to = Math.min(size, start + chunkSize);
+                tasks.add(pool.submit(() -> {
+                    Worker worker = workers.poll();
+                    if (worker == null) worker = new Worker();
+                    try {
+                        return worker.validate(channel, from, to, size, index, firstInvalid);
+                    } finally {
+                        workers.offer(worker);
+                    }
+                }));
+            }
+
+            Summary summary = new Summary();
+            long lineOffset = 0;
+            for (ForkJoinTask<Chunk> task : tasks) {
+                if (failFast && summary.invalid > 0) {
+                    task.cancel(false);
+                    continue;
+                }
+                Chunk chunk = join(task);
+                summary.records += chunk.records;
+                summary.invalid += chunk.invalid;
+                for (LineError error : chunk.errors) {
+                    if (summary.errors.size() < maxErrors) {
+                        summary.errors.add(new LineError(lineOffset + error.line, error.column, error.message));
+                    }
+                }
+                lineOffset += chunk.lines;
+            }
+            summary.lines = lineOffset;
+            return summary;
+        }
+    }
+
+    private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Validation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * State borrowed by one task at a time: the reusable validator and the buffer chunks are copied into.
+     */
+    private class Worker {
+        private final StructuralValidator validator = new StructuralValidator();
+        private byte[] buffer = new byte[0];
+
+        Chunk validate(FileChannel channel, long from, long to, long size, int index, AtomicInteger firstInvalid)
+                throws IOException {
+            Chunk chunk = new Chunk();
+            // map one byte before the chunk to see whether it starts at the beginning of a line
+            long mapFrom = from > 0 ? from - 1 : 0;
+            int length = (int) (to - mapFrom);
+            if (buffer.length < length) buffer = new byte[length];
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, mapFrom, length);
+            mapped.get(buffer, 0, length);
+
+            int lineStart = 0;
+            if (from > 0) {
+                // skip the tail of the line owned by the previous chunk
+                while (lineStart < length && buffer[lineStart] != '\n') lineStart++;
+                if (lineStart == length) return chunk;
+                lineStart++;
+            }
+            if (to < size && buffer[length - 1] != '\n') {
+                length = readRestOfLine(channel, to, size, length);
+            }
+
+            while (lineStart < length) {
+                if (failFast && firstInvalid.get() < index) return chunk;
+                int lineEnd = lineStart;
+                while (lineEnd < length && buffer[lineEnd] != '\n') lineEnd++;
+                chunk.lines++;
+                if (!isBlank(buffer, lineStart, lineEnd)) {
+                    chunk.records++;
+                    try {
+                        validator.validate(buffer, lineStart, lineEnd - lineStart);
+                    } catch (JsonParseException e) {
+                        chunk.invalid++;
+                        if (chunk.errors.size() < maxErrors) {
+                            chunk.errors.add(new LineError(chunk.lines, (int) e.getColumn(), e.getReason()));
+                        }
+                        if (failFast) {
+                            firstInvalid.accumulateAndGet(index, Math::min);
+                            return chunk;
+                        }
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        /**
+         * Appends the bytes after {@code to} up to and including the next newline, mapping a chunk at a time.
+         * @return the new number of bytes in the buffer
+         */
+        private int readRestOfLine(FileChannel channel, long to, long size, int length) throws IOException {
+            long position = to;
+            while (position < size) {
+                int count = (int) Math.min(chunkSize, size - position);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+                for (int i = 0; i < count; i++) {
+                    if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    byte b = mapped.get(i);
+                    buffer[length++] = b;
+                    if (b == '\n') return length;
+                }
+                position += count;
+            }
+            return length;
+        }
+    }
+
+    private static boolean isBlank(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    private static class Chunk {
+        long lines;
+        long records;
+        long invalid;
+        final List<LineError> errors = new ArrayList<>();
+    }
+
+    /**
+     * Outcome of validating a file.
+     */
+    public static class Summary {
+        long lines;
+        long records;
+        long invalid;
+        final List<LineError> errors = new ArrayList<>();
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getValid() {
+            return records - invalid;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * @return the first errors in line order, at most the configured maximum
+         */
+        public List<LineError> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("lines: %d, records: %d, valid: %d, invalid: %d", lines, records, getValid(), invalid);
+        }
+    }
+
+    public static class LineError {
+        final long line;
+        final int column;
+        final String message;
+
+        public LineError(long line, int column, String message) {
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ", column " + column + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package it.aman.jsonparser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Validates and converts JSON numbers directly from a character buffer, without creating an intermediate String.
+ * <p>
+ * {@link #parseDouble(char[], int, int)} follows the fast_float approach: up to 19 significant digits are gathered
+ * into a {@code long}, exact cases are handled with a single floating-point operation (Clinger's fast path) and
+ * everything else with the Eisel-Lemire algorithm, which multiplies by a 128-bit approximation of the power of five.
+ * Only numbers with more than 19 significant digits fall back to {@link BigDecimal}.
+ */
+public final class NumberParser {
+
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+    private static final int LARGEST_POWER_OF_TEN = 308;
+    private static final int MANTISSA_EXPLICIT_BITS = 52;
+    private static final int MINIMUM_EXPONENT = -1023;
+    private static final int INFINITE_POWER = 0x7FF;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_DIGITS = 19;
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 128-bit truncated powers of five from 5^-342 to 5^308, normalized so the top bit is set;
+     * high word at {@code 2 * i}, low word at {@code 2 * i + 1}.
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    /**
+     * Validates the number starting at {@code start} against the RFC 8259 grammar
+     * {@code -? (0 | [1-9][0-9]*) (. [0-9]+)? ([eE] [+-]? [0-9]+)?}.
+     * @return the index after the last character of the number, or {@code -1} when it is malformed
+     */
+    public static int scan(char[] buffer, int start, int limit) {
+        int p = start;
+        if (p < limit && buffer[p] == '-') p++;
+        if (p < limit && buffer[p] == '0') {
+            p++;
+        } else {
+            int digits = p;
+            while (p < limit && isDigit(buffer[p])) p++;
+            if (p == digits) return -1;
+        }
+        if (p < limit && buffer[p] == '.') {
+            int digits = ++p;
+            while (p < limit && isDigit(buffer[p])) p++;
+            if (p == digits) return -1;
+        }
+        if (p < limit && (buffer[p] == 'e' || buffer[p] == 'E')) {
+            p++;
+            if (p < limit && (buffer[p] == '+' || buffer[p] == '-')) p++;
+            int digits = p;
+            while (p < limit && isDigit(buffer[p])) p++;
+            if (p == digits) return -1;
+        }
+        return p;
+    }
+
+    /**
+     * Converts a JSON integer in {@code [start, end)}.
+     * @throws NumberFormatException when the text is not an integer or does not fit in a {@code long}
+     */
+    public static long parseLong(char[] buffer, int start, int end) {
+        int p = start;
+        boolean negative = p < end && buffer[p] == '-';
+        if (negative) p++;
+        if (p == end) throw numberFormat(buffer, start, end);
+        // accumulate negatively so Long.MIN_VALUE does not overflow
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; p < end; p++) {
+            char c = buffer[p];
+            if (!isDigit(c)) throw numberFormat(buffer, start, end);
+            int digit = c - '0';
+            if (result < Long.MIN_VALUE / 10) throw numberFormat(buffer, start, end);
+            result *= 10;
+            if (result < limit + digit) throw numberFormat(buffer, start, end);
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Converts a JSON number in {@code [start, end)} to the nearest {@code double}.
+     * @throws NumberFormatException when the text is not a valid JSON number
+     */
+    public static double parseDouble(char[] buffer, int start, int end) {
+        if (scan(buffer, start, end) != end) throw numberFormat(buffer, start, end);
+        int p = start;
+        boolean negative = buffer[p] == '-';
+        if (negative) p++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        for (; p < end && isDigit(buffer[p]); p++) {
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (buffer[p] - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                truncated |= buffer[p] != '0';
+            }
+        }
+        if (p < end && buffer[p] == '.') {
+            for (p++; p < end && isDigit(buffer[p]); p++) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (buffer[p] - '0');
+                    exponent--;
+                    if (mantissa != 0) digits++;
+                } else {
+                    truncated |= buffer[p] != '0';
+                }
+            }
+        }
+        if (p < end) { // exponent
+            p++;
+            boolean negativeExponent = buffer[p] == '-';
+            if (buffer[p] == '-' || buffer[p] == '+') p++;
+            int value = 0;
+            for (; p < end; p++) {
+                if (value < 100_000) value = value * 10 + (buffer[p] - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (truncated) {
+            return new BigDecimal(buffer, start, end - start).doubleValue();
+        }
+        double value = toDouble(mantissa, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the double nearest to {@code mantissa * 10^exponent}, the mantissa being an unsigned 64-bit value
+     */
+    static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0 || exponent < SMALLEST_POWER_OF_TEN) return 0.0;
+        if (exponent > LARGEST_POWER_OF_TEN) return Double.POSITIVE_INFINITY;
+        if (exponent >= -22 && exponent <= 22 && mantissa >= 0 && mantissa <= MAX_EXACT_MANTISSA) {
+            double value = mantissa;
+            return exponent < 0 ? value / EXACT_POWERS_OF_TEN[-exponent] : value * EXACT_POWERS_OF_TEN[exponent];
+        }
+        return eiselLemire(mantissa, exponent);
+    }
+
+    private static double eiselLemire(long w, int q) {
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        long precisionMask = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_EXPLICIT_BITS + 3);
+        if ((high & precisionMask) == precisionMask) {
+            long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+        }
+
+        int upperBit = (int) (high >>> 63);
+        int shift = upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3;
+        long mantissa = high >>> shift;
+        int power2 = power(q) + upperBit - lz - MINIMUM_EXPONENT;
+
+        if (power2 <= 0) { // subnormal
+            if (-power2 + 1 >= 64) return 0.0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << MANTISSA_EXPLICIT_BITS) ? 0 : 1;
+            return Double.longBitsToDouble(mantissa | ((long) power2 << MANTISSA_EXPLICIT_BITS));
+        }
+        // exactly halfway between two doubles: round to even instead of up
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << shift) == high) {
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << MANTISSA_EXPLICIT_BITS)) {
+            mantissa = 1L << MANTISSA_EXPLICIT_BITS;
+            power2++;
+        }
+        mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+        if (power2 >= INFINITE_POWER) return Double.POSITIVE_INFINITY;
+        return Double.longBitsToDouble(mantissa | ((long) power2 << MANTISSA_EXPLICIT_BITS));
+    }
+
+    /**
+     * @return {@code floor(log2(10^q)) + 63}
+     */
+    private static int power(int q) {
+        return (((152170 + 65536) * q) >> 16) + 63;
+    }
+
+    static long unsignedMultiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        long p11 = x1 * y1, p01 = x0 * y1, p10 = x1 * y0, p00 = x0 * y0;
+        long middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    private static long[] powersOfFive() {
+        long[] table = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; q++) {
+            BigInteger value;
+            if (q < 0) {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                value = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (value.compareTo(two128) >= 0) value = value.shiftRight(1);
+            } else {
+                value = BigInteger.valueOf(5).pow(q);
+                while (value.compareTo(two127) < 0) value = value.shiftLeft(1);
+                while (value.compareTo(two128) >= 0) value = value.shiftRight(1);
+            }
+            int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+            table[index] = value.shiftRight(64).longValue();
+            table[index + 1] = value.and(mask).longValue();
+        }
+        return table;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static NumberFormatException numberFormat(char[] buffer, int start, int end) {
+        return new NumberFormatException("Invalid number: " + new String(buffer, start, end - start));
+    }
+
+    private NumberParser() {
+        //
+    }
+}
@@ -0,0 +1,152 @@
+package it.aman.jsonparser;
+
+import java.nio.CharBuffer;
+
+/**
+ * Validates and decodes the raw text of JSON strings (the characters between the quotes).
+ * <p>
+ * Strings without escapes, by far the common case, are turned into a {@link String} with a single copy, or exposed
+ * as a {@link CharSequence} view over the source with no copy at all. Escapes, including {@code \}{@code uXXXX}
+ * and surrogate pairs written as two escapes, are only decoded when present. An escaped surrogate that is not part of
+ * a pair decodes to U+FFFD so the result is always well-formed UTF-16. Only ASCII hex digits are accepted in
+ * {@code \}{@code uXXXX} escapes. {@link JsonReader} decodes through the same routine, so both APIs agree on every
+ * document.
+ */
+public final class StringDecoder {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    /**
+     * Checks the escape sequence starting with the backslash at {@code position}.
+     * @return the length of the escape sequence, 2 for {@code \n} and friends or 6 for {@code \}{@code uXXXX}
+     * @throws IllegalArgumentException when the escape is unknown or truncated
+     */
+    public static int escapeLength(char[] buffer, int position, int limit) {
+        if (position + 1 >= limit) throw new IllegalArgumentException("Unterminated escape sequence");
+        switch (buffer[position + 1]) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                return 2;
+            case 'u':
+                if (position + 6 > limit || hex(buffer, position + 2) < 0) {
+                    throw new IllegalArgumentException("Invalid unicode escape");
+                }
+                return 6;
+            default:
+                throw new IllegalArgumentException("Unknown escape character");
+        }
+    }
+
+    /**
+     * Decodes the already validated raw string text in {@code [start, end)}.
+     */
+    public static String decode(char[] buffer, int start, int end) {
+        int escape = indexOfEscape(buffer, start, end);
+        if (escape == end) return new String(buffer, start, end - start);
+        char[] decoded = new char[end - start];
+        return new String(decoded, 0, decodeTo(buffer, start, end, decoded, 0));
+    }
+
+    /**
+     * Like {@link #decode(char[], int, int)} but returns a view over {@code buffer} without copying when the text has
+     * no escapes. The view is only valid as long as the buffer is not modified.
+     */
+    public static CharSequence view(char[] buffer, int start, int end) {
+        int escape = indexOfEscape(buffer, start, end);
+        if (escape == end) return CharBuffer.wrap(buffer, start, end - start);
+        char[] decoded = new char[end - start];
+        return CharBuffer.wrap(decoded, 0, decodeTo(buffer, start, end, decoded, 0));
+    }
+
+    static int indexOfEscape(char[] buffer, int start, int end) {
+        int i = start;
+        while (i < end && buffer[i] != '\\') i++;
+        return i;
+    }
+
+    /**
+     * Decodes the validated raw text in {@code [start, end)} of {@code source} into {@code target} from {@code to}.
+     * The decoded text is never longer than the raw text, so {@code target} may be {@code source} with {@code to} at
+     * most {@code start}, decoding in place.
+     * @return the position in {@code target} after the decoded text
+     */
+    static int decodeTo(char[] source, int start, int end, char[] target, int to) {
+        int i = start;
+        while (i < end) {
+            char c = source[i];
+            if (c != '\\') {
+                target[to++] = c;
+                i++;
+                continue;
+            }
+            char next = source[i + 1];
+            i += 2;
+            switch (next) {
+                case 'b':
+                    target[to++] = '\b';
+                    break;
+                case 'f':
+                    target[to++] = '\f';
+                    break;
+                case 'n':
+                    target[to++] = '\n';
+                    break;
+                case 'r':
+                    target[to++] = '\r';
+                    break;
+                case 't':
+                    target[to++] = '\t';
+                    break;
+                case 'u':
+                    char unit = (char) hex(source, i);
+                    i += 4;
+                    if (Character.isHighSurrogate(unit) && i + 6 <= end && source[i] == '\\' && source[i + 1] == 'u'
+                            && Character.isLowSurrogate((char) hex(source, i + 2))) {
+                        target[to++] = unit;
+                        target[to++] = (char) hex(source, i + 2);
+                        i += 6;
+                    } else {
+                        target[to++] = Character.isSurrogate(unit) ? REPLACEMENT : unit;
+                    }
+                    break;
+                default:
+                    target[to++] = next;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return the value of the four hex digits at {@code position}, or {@code -1} when they are not all hex digits
+     */
+    private static int hex(char[] buffer, int position) {
+        int value = 0;
+        for (int i = position; i < position + 4; i++) {
+            int digit = hexDigit(buffer[i]);
+            if (digit < 0) return -1;
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of the ASCII hex digit {@code c}, or {@code -1}; unlike {@link Character#digit(char, int)}
+     * other scripts' digits and fullwidth letters are rejected
+     */
+    static int hexDigit(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    private StringDecoder() {
+        //
+    }
+}
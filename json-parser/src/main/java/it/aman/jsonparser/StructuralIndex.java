@@ -0,0 +1,150 @@
+package it.aman.jsonparser;
+
+import java.util.Arrays;
+
+/**
+ * First stage of the two-stage parser: finds the offsets of all structural characters in a UTF-8 buffer.
+ * <p>
+ * The input is processed in 64-byte blocks. Each block is turned into 64-bit masks (one bit per byte) for quotes,
+ * backslashes, operators ({@code { } [ ] : ,}) and whitespace, and the string regions are computed from those masks
+ * with carry-less bit arithmetic instead of a per-character state machine:
+ * <ul>
+ *     <li>quotes preceded by an odd run of backslashes are escaped and dropped,</li>
+ *     <li>a prefix-xor over the remaining quotes gives the bytes inside strings,</li>
+ *     <li>operators inside strings are dropped, and the first byte of every number or literal is added.</li>
+ * </ul>
+ * The resulting offsets are walked by {@link StructuralValidator}. Instances keep their index array between calls.
+ */
+public class StructuralIndex {
+
+    public static final int BLOCK_SIZE = 64;
+
+    private static final long EVEN_BITS = 0x5555555555555555L;
+    private static final long ODD_BITS = ~EVEN_BITS;
+
+    private static final byte QUOTE = 1;
+    private static final byte BACKSLASH = 2;
+    private static final byte OPERATOR = 4;
+    private static final byte WHITESPACE = 8;
+    private static final byte[] CLASSES = new byte[256];
+
+    static {
+        CLASSES['"'] = QUOTE;
+        CLASSES['\\'] = BACKSLASH;
+        for (char c : new char[]{'{', '}', '[', ']', ':', ','}) CLASSES[c] = OPERATOR;
+        for (char c : new char[]{' ', '\t', '\n', '\r'}) CLASSES[c] = WHITESPACE;
+    }
+
+    private final byte[] tail = new byte[BLOCK_SIZE];
+    private int[] indexes = new int[256];
+    private int size;
+
+    // state carried from one block to the next
+    private long prevEndsOddBackslash;
+    private long prevInString;
+    private long prevScalar;
+
+    /**
+     * Indexes {@code length} bytes of {@code input} starting at {@code offset}.
+     * Offsets stored in the index are absolute positions in {@code input}.
+     * @throws JsonParseException when a string is not terminated
+     */
+    public void build(byte[] input, int offset, int length) throws JsonParseException {
+        size = 0;
+        prevEndsOddBackslash = 0;
+        prevInString = 0;
+        prevScalar = 0;
+        ensureCapacity(length / 8 + BLOCK_SIZE);
+
+        int end = offset + length;
+        int block = offset;
+        for (; block + BLOCK_SIZE <= end; block += BLOCK_SIZE) {
+            indexBlock(input, block, block);
+        }
+        if (block < end) {
+            Arrays.fill(tail, (byte) ' ');
+            System.arraycopy(input, block, tail, 0, end - block);
+            indexBlock(tail, 0, block);
+        }
+        if (prevInString != 0) {
+            throw JsonParseException.at("Unterminated string", input, offset, end, end);
+        }
+    }
+
+    private void indexBlock(byte[] input, int from, int base) {
+        long quote = 0, backslash = 0, operator = 0, whitespace = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            long c = CLASSES[input[from + i] & 0xFF];
+            quote |= (c & QUOTE) << i;
+            backslash |= ((c & BACKSLASH) >>> 1) << i;
+            operator |= ((c & OPERATOR) >>> 2) << i;
+            whitespace |= ((c & WHITESPACE) >>> 3) << i;
+        }
+
+        quote &= ~escaped(backslash);
+        long inString = prefixXor(quote) ^ prevInString;
+        prevInString = inString >> 63;
+
+        long scalar = ~(operator | whitespace | quote);
+        long scalarStart = scalar & ~((scalar << 1) | prevScalar);
+        prevScalar = scalar >>> 63;
+
+        long structural = ((operator | scalarStart) & ~inString) | quote;
+        flatten(structural, base);
+    }
+
+    /**
+     * @return a mask of the bytes that follow an odd-length run of backslashes
+     */
+    private long escaped(long backslash) {
+        long startEdges = backslash & ~(backslash << 1);
+        long evenStartMask = EVEN_BITS ^ prevEndsOddBackslash;
+        long evenStarts = startEdges & evenStartMask;
+        long oddStarts = startEdges & ~evenStartMask;
+
+        long evenCarries = backslash + evenStarts;
+        long oddCarries = backslash + oddStarts;
+        long endsOdd = Long.compareUnsigned(oddCarries, backslash) < 0 ? 1 : 0;
+        oddCarries |= prevEndsOddBackslash;
+        prevEndsOddBackslash = endsOdd;
+
+        long evenCarryEnds = evenCarries & ~backslash;
+        long oddCarryEnds = oddCarries & ~backslash;
+        return (evenCarryEnds & ODD_BITS) | (oddCarryEnds & EVEN_BITS);
+    }
+
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    private void flatten(long bits, int base) {
+        ensureCapacity(size + Long.bitCount(bits));
+        while (bits != 0) {
+            indexes[size++] = base + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > indexes.length) {
+            indexes = Arrays.copyOf(indexes, Math.max(capacity, indexes.length * 2));
+        }
+    }
+
+    /**
+     * @return the number of structural positions found by the last {@link #build(byte[], int, int)}
+     */
+    public int size() {
+        return size;
+    }
+
+    public int get(int i) {
+        return indexes[i];
+    }
+}
@@ -0,0 +1,269 @@
+package it.aman.jsonparser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Second stage of the two-stage parser: validates a UTF-8 document by walking the offsets found by
+ * {@link StructuralIndex} instead of looking at every character.
+ * <p>
+ * Only the bytes of strings, numbers and literals are read again, to check escapes and scalar grammar.
+ * An instance reuses its index and container stack, so validating many documents with one instance allocates
+ * nothing once the buffers have grown to the largest document. Nesting deeper than the maximum depth is reported
+ * as invalid, so untrusted input cannot grow the stack without bound. Instances are not thread-safe.
+ */
+public class StructuralValidator {
+
+    private static final byte IN_ARRAY = 0;
+    private static final byte IN_OBJECT = 1;
+
+    private static final int DOCUMENT_START = 0;
+    private static final int FIRST_IN_ARRAY = 1;
+    private static final int FIRST_IN_OBJECT = 2;
+    private static final int AFTER_KEY = 3;
+    private static final int EXPECT_KEY = 4;
+    private static final int EXPECT_VALUE = 5;
+    private static final int AFTER_VALUE = 6;
+    private static final int DOCUMENT_END = 7;
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final StructuralIndex index = new StructuralIndex();
+    private final int maxDepth;
+    private byte[] stack = new byte[32];
+    private int depth;
+    /**
+     * The last document validated, kept to locate errors.
+     */
+    private byte[] input;
+    private int documentStart;
+    private int documentEnd;
+
+    public StructuralValidator() {
+        this(Lexer.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth the deepest nesting of objects and arrays accepted
+     */
+    public StructuralValidator(int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("Maximum depth must be positive");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public void validate(byte[] input) throws JsonParseException {
+        validate(input, 0, input.length);
+    }
+
+    /**
+     * Validates the document in {@code length} bytes of {@code input} starting at {@code offset}.
+     * @throws JsonParseException at the absolute offset in {@code input} of the first error
+     */
+    public void validate(byte[] input, int offset, int length) throws JsonParseException {
+        this.input = input;
+        this.documentStart = offset;
+        this.documentEnd = offset + length;
+        index.build(input, offset, length);
+        int end = offset + length;
+        int count = index.size();
+        depth = 0;
+        int state = DOCUMENT_START;
+        int i = 0;
+        while (i < count) {
+            int p = index.get(i++);
+            byte c = input[p];
+            switch (state) {
+                case FIRST_IN_ARRAY:
+                    if (c == Lexer.CLOSE_ARRAY) {
+                        state = close(IN_ARRAY, p);
+                        break;
+                    }
+                    // fall through: first element
+                case DOCUMENT_START:
+                case EXPECT_VALUE:
+                    if (c == Lexer.BEGIN_OBJECT) {
+                        push(IN_OBJECT, p);
+                        state = FIRST_IN_OBJECT;
+                    } else if (c == Lexer.BEGIN_ARRAY) {
+                        push(IN_ARRAY, p);
+                        state = FIRST_IN_ARRAY;
+                    } else if (c == Lexer.QUOTE) {
+                        i = string(input, p, i, count);
+                        state = afterValue();
+                    } else {
+                        scalar(input, p, i < count ? index.get(i) : end);
+                        state = afterValue();
+                    }
+                    break;
+                case FIRST_IN_OBJECT:
+                    if (c == Lexer.CLOSE_OBJECT) {
+                        state = close(IN_OBJECT, p);
+                        break;
+                    }
+                    // fall through: first key
+                case EXPECT_KEY:
+                    if (c != Lexer.QUOTE) throw error("Key parsing error", p);
+                    i = string(input, p, i, count);
+                    state = AFTER_KEY;
+                    break;
+                case AFTER_KEY:
+                    if (c != Lexer.COLON) throw error("Wrong format. Missing colon", p);
+                    state = EXPECT_VALUE;
+                    break;
+                case AFTER_VALUE:
+                    if (c == Lexer.COMMA) {
+                        state = stack[depth - 1] == IN_OBJECT ? EXPECT_KEY : EXPECT_VALUE;
+                    } else if (c == Lexer.CLOSE_OBJECT) {
+                        state = close(IN_OBJECT, p);
+                    } else if (c == Lexer.CLOSE_ARRAY) {
+                        state = close(IN_ARRAY, p);
+                    } else {
+                        throw error("Expected ',' or closing bracket", p);
+                    }
+                    break;
+                default:
+                    throw error("Unexpected content after the end of the document", p);
+            }
+        }
+        if (state != DOCUMENT_END) {
+            throw error(count == 0 ? "Empty document" : "Unexpected EOF", end);
+        }
+    }
+
+    private int afterValue() {
+        return depth == 0 ? DOCUMENT_END : AFTER_VALUE;
+    }
+
+    private void push(byte container, int position) throws JsonParseException {
+        if (depth == maxDepth) {
+            throw error("Maximum nesting depth of " + maxDepth + " exceeded", position);
+        }
+        if (depth == stack.length) stack = Arrays.copyOf(stack, Math.min(depth * 2, maxDepth));
+        stack[depth++] = container;
+    }
+
+    private int close(byte container, int position) throws JsonParseException {
+        if (depth == 0 || stack[depth - 1] != container) {
+            throw error("Unexpected closing bracket", position);
+        }
+        depth--;
+        return afterValue();
+    }
+
+    /**
+     * Validates the string opened at {@code open}; its closing quote is the next structural position.
+     * @return the index position after the closing quote
+     */
+    private int string(byte[] input, int open, int next, int count) throws JsonParseException {
+        if (next >= count) throw error("Unterminated string", open);
+        int close = index.get(next);
+        for (int p = open + 1; p < close; p++) {
+            int c = input[p] & 0xFF;
+            if (c < 0x20) throw error("Control character in string", p);
+            if (c != '\\') continue;
+            switch (input[++p]) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    break;
+                case 'u':
+                    for (int h = 0; h < 4; h++) {
+                        if (++p >= close || StringDecoder.hexDigit(input[p]) < 0) {
+                            throw error("Invalid unicode escape", p);
+                        }
+                    }
+                    break;
+                default:
+                    throw error("Unknown escape character", p);
+            }
+        }
+        return next + 1;
+    }
+
+    /**
+     * Validates the number or literal starting at {@code start}; it ends before the next structural position.
+     */
+    private void scalar(byte[] input, int start, int limit) throws JsonParseException {
+        int end = limit;
+        while (end > start && isWhitespace(input[end - 1])) end--;
+        byte c = input[start];
+        switch (c) {
+            case 't':
+                literal(input, start, end, TRUE);
+                return;
+            case 'f':
+                literal(input, start, end, FALSE);
+                return;
+            case 'n':
+                literal(input, start, end, NULL);
+                return;
+            default:
+                if (c != '-' && !isDigit(c)) {
+                    throw error("Unexpected character '" + characterAt(input, start, documentEnd) + "'", start);
+                }
+                number(input, start, end);
+        }
+    }
+
+    /**
+     * @return the character whose UTF-8 encoding starts at {@code p}, as the {@link Lexer} would report it
+     */
+    private static String characterAt(byte[] input, int p, int end) {
+        int c = input[p] & 0xFF;
+        int length = c < 0x80 ? 1 : c >= 0xF0 ? 4 : c >= 0xE0 ? 3 : 2;
+        return new String(input, p, Math.min(length, end - p), StandardCharsets.UTF_8);
+    }
+
+    private void literal(byte[] input, int start, int end, byte[] expected) throws JsonParseException {
+        if (end - start != expected.length) throw error("Wrong value", start);
+        for (int i = 0; i < expected.length; i++) {
+            if (input[start + i] != expected[i]) throw error("Wrong value", start);
+        }
+    }
+
+    private void number(byte[] input, int start, int end) throws JsonParseException {
+        int p = start;
+        if (p < end && input[p] == '-') p++;
+        if (p < end && input[p] == '0') {
+            p++;
+        } else {
+            int digits = p;
+            while (p < end && isDigit(input[p])) p++;
+            if (p == digits) throw error("Invalid number format", start);
+        }
+        if (p < end && input[p] == '.') {
+            int digits = ++p;
+            while (p < end && isDigit(input[p])) p++;
+            if (p == digits) throw error("Invalid number format", start);
+        }
+        if (p < end && (input[p] == 'e' || input[p] == 'E')) {
+            p++;
+            if (p < end && (input[p] == '+' || input[p] == '-')) p++;
+            int digits = p;
+            while (p < end && isDigit(input[p])) p++;
+            if (p == digits) throw error("Invalid number format", start);
+        }
+        if (p != end) throw error("Invalid number format", start);
+    }
+
+    private JsonParseException error(String reason, int offset) {
+        return JsonParseException.at(reason, input, documentStart, offset, documentEnd);
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
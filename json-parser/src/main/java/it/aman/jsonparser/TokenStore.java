@@ -0,0 +1,119 @@
+package it.aman.jsonparser;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Structure-of-arrays store for the tokens produced by the {@link Lexer}.
+ * <p>
+ * A token is kept as its type plus the start (inclusive) and end (exclusive) offsets of its text in the source buffer,
+ * in three parallel arrays. Strings are stored without their surrounding quotes. {@link Lexer.Token} objects
+ * are only created when they are read through {@link #asList()} or {@link #token(int)}.
+ */
+public class TokenStore {
+
+    private static final Lexer.Type[] TYPES = Lexer.Type.values();
+    private static final int MIN_CAPACITY = 16;
+
+    private char[] source;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    TokenStore(char[] source, int expectedTokens) {
+        this.source = source;
+        int capacity = Math.max(MIN_CAPACITY, expectedTokens);
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+    }
+
+    /**
+     * Empties the store for the tokens of a new document in {@code source}, keeping the arrays allocated so far and
+     * growing them to {@code expectedTokens} up front.
+     */
+    void reset(char[] source, int expectedTokens) {
+        this.source = source;
+        this.size = 0;
+        if (types.length < expectedTokens) {
+            types = new byte[expectedTokens];
+            starts = new int[expectedTokens];
+            ends = new int[expectedTokens];
+        }
+    }
+
+    void add(Lexer.Type type, int start, int end) {
+        if (size == types.length) grow();
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Lexer.Type type(int index) {
+        checkIndex(index);
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public int end(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * @return the raw source text of the token, escapes are not decoded
+     */
+    public String text(int index) {
+        checkIndex(index);
+        return new String(source, starts[index], ends[index] - starts[index]);
+    }
+
+    public Lexer.Token token(int index) {
+        return new Lexer.Token(type(index), text(index));
+    }
+
+    char[] source() {
+        return source;
+    }
+
+    /**
+     * @return a read-only list view that materializes a {@link Lexer.Token} on every {@code get}
+     */
+    public List<Lexer.Token> asList() {
+        return new AbstractList<Lexer.Token>() {
+            @Override
+            public Lexer.Token get(int index) {
+                return token(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Token index " + index + ", size " + size);
+        }
+    }
+}
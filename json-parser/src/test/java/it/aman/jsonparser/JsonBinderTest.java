@@ -0,0 +1,119 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonBinderTest {
+
+    private final JsonBinder binder = new JsonBinder();
+
+    enum Status { ACTIVE, BLOCKED }
+
+    static class Entity {
+        long id;
+    }
+
+    static class User extends Entity {
+        private String name;
+        int age;
+        double score;
+        float ratio;
+        boolean admin;
+        char initial;
+        Integer visits;
+        Status status;
+        BigDecimal balance;
+        BigInteger big;
+        int[] lucky;
+        List<Address> addresses;
+        Set<String> tags;
+        Map<String, Integer> counts;
+        JsonValue extra;
+        transient String ignored = "kept";
+        final String constant = "fixed";
+
+        private User() {
+        }
+    }
+
+    static class Address {
+        String city;
+        String zip;
+    }
+
+    @Test
+    public void read_binds_fields() throws Exception {
+        User user = binder.read("{\"id\": 7, \"name\": \"Ada \\u00e9\", \"age\": 36, \"score\": 1.5e2, \"ratio\": 0.1,"
+                + " \"admin\": true, \"initial\": \"A\", \"visits\": 3, \"status\": \"BLOCKED\","
+                + " \"balance\": 12.50, \"big\": 123456789012345678901234567890, \"lucky\": [4, 8, 15],"
+                + " \"addresses\": [{\"city\": \"Rome\", \"zip\": \"00100\"}, {\"city\": \"Milan\"}],"
+                + " \"tags\": [\"a\", \"b\", \"a\"], \"counts\": {\"x\": 1, \"y\": null},"
+                + " \"extra\": {\"any\": [1, {\"thing\": null}]}, \"ignored\": \"x\", \"constant\": \"y\"}", User.class);
+
+        assertEquals(7, user.id);
+        assertEquals("Ada é", user.name);
+        assertEquals(36, user.age);
+        assertEquals(150.0, user.score);
+        assertEquals(0.1f, user.ratio);
+        assertTrue(user.admin);
+        assertEquals('A', user.initial);
+        assertEquals(Integer.valueOf(3), user.visits);
+        assertEquals(Status.BLOCKED, user.status);
+        assertEquals(new BigDecimal("12.50"), user.balance);
+        assertEquals(new BigInteger("123456789012345678901234567890"), user.big);
+        assertArrayEquals(new int[]{4, 8, 15}, user.lucky);
+        assertEquals(2, user.addresses.size());
+        assertEquals("Rome", user.addresses.get(0).city);
+        assertEquals("00100", user.addresses.get(0).zip);
+        assertNull(user.addresses.get(1).zip);
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(user.tags.toArray()));
+        assertEquals(Integer.valueOf(1), user.counts.get("x"));
+        assertTrue(user.counts.containsKey("y"));
+        assertEquals(2, user.extra.asObject().get("any").asArray().size());
+        assertEquals("kept", user.ignored);
+        assertEquals("fixed", user.constant);
+    }
+
+    @Test
+    public void read_skips_unknown_members_and_handles_null() throws Exception {
+        User user = binder.read("{\"unknown\": {\"nested\": [1, [2, {\"id\": 99}]]}, \"n\\u0061me\": \"escaped key\","
+                + " \"age\": null, \"visits\": null, \"addresses\": null, \"more\": [], \"id\": 5}", User.class);
+        assertEquals(5, user.id);
+        assertEquals("escaped key", user.name);
+        assertEquals(0, user.age);
+        assertNull(user.visits);
+        assertNull(user.addresses);
+    }
+
+    @Test
+    public void read_arrays_of_objects() throws Exception {
+        Address[] addresses = binder.read("[{\"city\": \"Oslo\"}, null, {\"zip\": \"1\"}]", Address[].class);
+        assertEquals(3, addresses.length);
+        assertEquals("Oslo", addresses[0].city);
+        assertNull(addresses[1]);
+        assertEquals("1", addresses[2].zip);
+    }
+
+    @Test
+    public void read_reports_mismatches_with_position() {
+        JsonParseException e = assertThrows(JsonParseException.class,
+                () -> binder.read("{\"id\": 1,\n \"age\": \"old\"}", User.class));
+        assertEquals("Expected a number", e.getReason());
+        assertEquals(2, e.getLine());
+        assertEquals(10, e.getColumn());
+
+        assertThrows(JsonParseException.class, () -> binder.read("{\"age\": 3000000000}", User.class));
+        assertThrows(JsonParseException.class, () -> binder.read("{\"age\": 1.5}", User.class));
+        assertThrows(JsonParseException.class, () -> binder.read("{\"status\": \"GONE\"}", User.class));
+        assertThrows(JsonParseException.class, () -> binder.read("{\"age\": 1", User.class));
+        assertThrows(IllegalArgumentException.class, () -> binder.read("{}", Runnable.class));
+    }
+}
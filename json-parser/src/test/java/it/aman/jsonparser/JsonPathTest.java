@@ -0,0 +1,49 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonPathTest {
+
+    private static final String DOCUMENT = "{\"user\": {\"name\": \"a]b}\", \"id\": 42, \"tags\": [\"x\", \"y\"]},"
+            + " \"items\": [{\"price\": 1.5, \"skip\": {\"price\": 99}}, {\"price\": 2}, {\"other\": [1, [2, {}]]}],"
+            + " \"esc\\u0061ped\": true}";
+
+    @Test
+    public void select_member() throws Exception {
+        List<JsonValue> ids = JsonPath.compile("$.user.id").select(DOCUMENT);
+        assertEquals(1, ids.size());
+        assertEquals(42, ids.get(0).asNumber().longValue());
+        assertEquals("a]b}", JsonPath.compile("$['user']['name']").select(DOCUMENT).get(0).asString());
+    }
+
+    @Test
+    public void select_wildcards_and_indexes() throws Exception {
+        List<JsonValue> prices = JsonPath.compile("$.items[*].price").select(DOCUMENT);
+        assertEquals(2, prices.size());
+        assertEquals(1.5, prices.get(0).asNumber().doubleValue());
+        assertEquals(2, prices.get(1).asNumber().longValue());
+
+        assertEquals("y", JsonPath.compile("$.user.tags[1]").select(DOCUMENT).get(0).asString());
+        assertEquals(3, JsonPath.compile("$.user.*").select(DOCUMENT).size());
+        assertTrue(JsonPath.compile("$.items[5]").select(DOCUMENT).isEmpty());
+    }
+
+    @Test
+    public void select_containers_and_escaped_keys() throws Exception {
+        JsonValue user = JsonPath.compile("$.user").select(DOCUMENT).get(0);
+        assertEquals(42, user.asObject().get("id").asNumber().intValue());
+        assertTrue(JsonPath.compile("$.escaped").select(DOCUMENT).get(0).asBoolean());
+        assertEquals(2, JsonPath.compile("$").select("{\"a\": [1, 2]}").get(0).asObject().get("a").asArray().size());
+    }
+
+    @Test
+    public void compile_rejects_invalid_paths() {
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("user.id"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("$.items[x]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("$.items[0"));
+    }
+}
@@ -0,0 +1,145 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonReaderTest {
+
+    @Test
+    public void next_reports_events() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("{\"a\": [1, -2.5e3, \"x\\ty\"], \"b\": {\"c\": true, \"d\": null}}"));
+        assertEquals(Lexer.Type.BEGIN_OBJECT, reader.next());
+        assertEquals(Lexer.Type.STRING, reader.next());
+        assertTrue(reader.isName());
+        assertEquals("a", reader.getString());
+        assertEquals(Lexer.Type.BEGIN_ARRAY, reader.next());
+        assertEquals(Lexer.Type.NUMBER, reader.next());
+        assertEquals(1, reader.getLong());
+        assertEquals(Lexer.Type.NUMBER, reader.next());
+        assertEquals(-2500.0, reader.getDouble());
+        assertEquals(Lexer.Type.STRING, reader.next());
+        assertFalse(reader.isName());
+        assertEquals("x\ty", reader.getString());
+        assertEquals(Lexer.Type.CLOSE_ARRAY, reader.next());
+        assertEquals(Lexer.Type.STRING, reader.next());
+        assertEquals(Lexer.Type.BEGIN_OBJECT, reader.next());
+        reader.skipChildren();
+        assertEquals(Lexer.Type.CLOSE_OBJECT, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void next_handles_tokens_across_chunks() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[\"a long string value\", 1234567890, false]"), 3);
+        assertEquals(Lexer.Type.BEGIN_ARRAY, reader.next());
+        assertEquals(Lexer.Type.STRING, reader.next());
+        assertEquals("a long string value", reader.getString());
+        assertEquals(Lexer.Type.NUMBER, reader.next());
+        assertEquals(1234567890L, reader.getLong());
+        assertEquals(Lexer.Type.FALSE, reader.next());
+        assertEquals(Lexer.Type.CLOSE_ARRAY, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void next_rejects_invalid() throws Exception {
+        assertInvalid("");
+        assertInvalid("{\"key\": \"value\",}");
+        assertInvalid("{key: 1}");
+        assertInvalid("[1 2]");
+        assertInvalid("[01]");
+        assertInvalid("[False]");
+        assertInvalid("[\"a\"]]");
+        assertInvalid("[\"unterminated");
+    }
+
+    @Test
+    public void next_validates_fixtures() throws Exception {
+        for (String fixture : new String[]{"/tests/step1/valid.json", "/tests/step2/valid2.json",
+                "/tests/step3/valid.json", "/tests/step4/valid2.json", "/tests/step4/valid3.json"}) {
+            JsonReader reader = new JsonReader(new StringReader(LexerTest.read(fixture)));
+            while (reader.next() != null) {
+                assertNotNull(reader.getCurrent());
+            }
+        }
+        assertInvalid(LexerTest.read("/tests/step4/invalid.json"));
+    }
+
+    @Test
+    public void getString_decodes_like_json_value() throws Exception {
+        String json = "[\"a\\u0041\\/\\\"\", \"\\ud83d\\ude00\", \"\\ud83d!\", \"x\\ude00\\ud83d\", \"\\n\\t\"]";
+        JsonValue.JsonArray expected = JsonValue.parse(json).asArray();
+        for (int bufferSize : new int[]{1, 3, 7, JsonReader.DEFAULT_BUFFER_SIZE}) {
+            JsonReader reader = new JsonReader(new StringReader(json), bufferSize);
+            assertEquals(Lexer.Type.BEGIN_ARRAY, reader.next());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(Lexer.Type.STRING, reader.next());
+                assertEquals(expected.get(i).asString(), reader.getString(), "string " + i);
+            }
+        }
+        assertEquals("\ufffd!", expected.get(2).asString());
+        assertInvalid("[\"\\u\uff10\uff10\uff14\uff11\"]");
+    }
+
+    @Test
+    public void next_reports_error_position() {
+        JsonParseException e = assertThrows(JsonParseException.class, () -> {
+            JsonReader reader = new JsonReader(new StringReader("[\n  1,\n  x\n]"), 4);
+            while (reader.next() != null) {
+                // consume
+            }
+        });
+        assertEquals(3, e.getLine());
+        assertEquals(3, e.getColumn());
+        assertEquals(9, e.getOffset());
+    }
+
+    @Test
+    public void next_reports_number_errors_at_the_start() {
+        for (String number : new String[]{"-", "1.", "-12.5e+", "-x"}) {
+            JsonParseException e = assertThrows(JsonParseException.class, () -> {
+                JsonReader reader = new JsonReader(new StringReader("[\n  " + number + "]"), 4);
+                while (reader.next() != null) {
+                    // consume
+                }
+            });
+            assertEquals("Invalid number format", e.getReason(), number);
+            assertEquals(2, e.getLine(), number);
+            assertEquals(3, e.getColumn(), number);
+            assertEquals(4, e.getOffset(), number);
+        }
+    }
+
+    @Test
+    public void next_rejects_nesting_past_max_depth() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[[[{\"a\": 1}]]]"), 4, 4);
+        while (reader.next() != null) {
+            assertTrue(reader.getDepth() <= 4);
+        }
+
+        JsonParseException e = assertThrows(JsonParseException.class, () -> {
+            JsonReader deep = new JsonReader(new StringReader("[[[[[1]]]]]"), 4, 4);
+            while (deep.next() != null) {
+                // consume
+            }
+        });
+        assertEquals(4, e.getOffset());
+
+        StringBuilder hostile = new StringBuilder();
+        for (int i = 0; i <= Lexer.DEFAULT_MAX_DEPTH; i++) hostile.append('[');
+        assertInvalid(hostile.toString());
+    }
+
+    private static void assertInvalid(String json) {
+        assertThrows(ParseException.class, () -> {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            while (reader.next() != null) {
+                // consume
+            }
+        }, json);
+    }
+}
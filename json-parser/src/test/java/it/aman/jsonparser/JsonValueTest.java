@@ -0,0 +1,86 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonValueTest {
+
+    @Test
+    public void parse_builds_tree() throws Exception {
+        JsonValue root = JsonValue.parse(LexerTest.read("/tests/step4/valid3.json"));
+        assertTrue(root.isArray());
+        JsonValue.JsonObject first = root.asArray().get(0).asObject();
+        assertEquals(308, first.get("id").asNumber().longValue());
+        JsonValue.JsonArray names = first.get("names").asArray();
+        assertEquals(2, names.size());
+        assertEquals("it3rwvt9onmcqfqtghg2", names.get(1).asObject().get("name").asString());
+        assertNull(first.get("missing"));
+    }
+
+    @Test
+    public void parse_decodes_scalars_on_access() throws Exception {
+        JsonValue.JsonObject root = JsonValue.parse("{\"s\": \"a\\tb\", \"d\": 1.25, \"t\": true, \"n\": null, \"e\": {}}")
+                .asObject();
+        assertEquals("a\tb", root.get("s").asString());
+        assertEquals(1.25, root.get("d").asNumber().doubleValue());
+        assertEquals(new BigDecimal("1.25"), root.get("d").asNumber().bigDecimalValue());
+        assertSame(root.get("d").asNumber().bigDecimalValue(), root.get("d").asNumber().bigDecimalValue());
+        JsonValue.JsonNumber number = JsonValue.parse("[-42]").asArray().get(0).asNumber();
+        assertEquals(-42, number.longValue());
+        assertEquals(-42, number.longValue());
+        assertEquals(-42.0, number.doubleValue());
+        assertEquals(-42, number.intValue());
+        assertTrue(root.get("t").asBoolean());
+        assertTrue(root.get("n").isNull());
+        assertEquals(0, root.get("e").asObject().size());
+        assertEquals("s", root.getKey(0));
+    }
+
+    @Test
+    public void parse_indexes_wide_objects() throws Exception {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"k").append(i).append("\":").append(i);
+        }
+        JsonValue.JsonObject root = JsonValue.parse(json.append('}').toString()).asObject();
+        assertEquals(20, root.size());
+        assertEquals(17, root.get("k17").asNumber().intValue());
+    }
+
+    @Test
+    public void parse_decodes_escapes_and_surrogates() throws Exception {
+        JsonValue.JsonArray root = JsonValue.parse("[\"a\\u0041\\/\\\"\", \"\\ud83d\\ude00\", \"\\ud83d!\", \"plain\"]").asArray();
+        assertEquals("aA/\"", root.get(0).asString());
+        assertEquals("\ud83d\ude00", root.get(1).asString());
+        assertEquals("\ufffd!", root.get(2).asString());
+        assertEquals("plain", ((JsonValue.JsonString) root.get(3)).asCharSequence().toString());
+    }
+
+    @Test
+    public void parse_interns_repeated_keys() throws Exception {
+        JsonValue.JsonArray root = JsonValue.parse("[{\"name\": 1, \"k\\u0065y\": 2}, {\"name\": 3, \"key\": 4}]").asArray();
+        assertSame(root.get(0).asObject().getKey(0), root.get(1).asObject().getKey(0));
+        assertEquals("key", root.get(0).asObject().getKey(1));
+        assertEquals(2, root.get(0).asObject().get("key").asNumber().longValue());
+    }
+
+    @Test
+    public void parse_rejects_invalid_strings() {
+        assertThrows(ParseException.class, () -> JsonValue.parse("[\"\\x\"]"));
+        assertThrows(ParseException.class, () -> JsonValue.parse("[\"\\u12\"]"));
+        assertThrows(ParseException.class, () -> JsonValue.parse("[\"\\u\uff10\uff10\uff14\uff11\"]"));
+        assertThrows(ParseException.class, () -> JsonValue.parse("[\"a\tb\"]"));
+        assertThrows(JsonParseException.class, () -> JsonValue.parse("[\"unterminated"));
+    }
+
+    @Test
+    public void parse_scalar_document() throws Exception {
+        assertEquals(42, JsonValue.parse(" 42 ").asNumber().longValue());
+        assertThrows(ParseException.class, () -> JsonValue.parse("[1] 2"));
+    }
+}
@@ -0,0 +1,143 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonWriterTest {
+
+    private static final JsonWriter.Name ID = JsonWriter.Name.of("id");
+    private static final JsonWriter.Name TAGS = JsonWriter.Name.of("ta\"gs");
+
+    static class Item {
+        long id;
+        String label;
+        double price;
+        List<String> tags;
+    }
+
+    @Test
+    public void writes_structure() throws Exception {
+        JsonWriter writer = new JsonWriter();
+        writer.beginObject()
+                .name(ID).value(42)
+                .name("list").beginArray().value(true).nullValue().beginObject().endObject().beginArray().endArray().endArray()
+                .name(TAGS).value("x")
+                .endObject();
+        assertEquals("{\"id\":42,\"list\":[true,null,{},[]],\"ta\\\"gs\":\"x\"}", writer.toString());
+        new StructuralValidator().validate(writer.toByteArray());
+
+        writer.reset().beginArray().value(-1).endArray();
+        assertEquals("[-1]", writer.toString());
+        assertEquals(4, writer.byteBuffer().remaining());
+    }
+
+    @Test
+    public void rejects_misplaced_calls() throws Exception {
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginObject().value(1));
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginArray().name("a"));
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginArray().endObject());
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginObject().name("a").endObject());
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().value(1).value(2));
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter().value(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new JsonWriter().value(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void strings_round_trip() throws Exception {
+        StringBuilder all = new StringBuilder();
+        for (char c = 0; c < 0x300; c++) all.append(c);
+        all.append(" \uFFFF\uD83D\uDE00 end");
+        String[] values = {"", "plain", "quote \" and \\ slash /", "\b\f\n\r\t\u0000\u001f", "é€😀", all.toString()};
+        for (String value : values) {
+            JsonWriter writer = new JsonWriter(1);
+            writer.value(value);
+            String json = new String(writer.toByteArray(), StandardCharsets.UTF_8);
+            assertEquals(value, JsonValue.parse(json).asString());
+        }
+        assertEquals("\"\\u0001\\n\"", new JsonWriter().value("\u0001\n").toString());
+        assertEquals("\"a\\ud800b\"", new JsonWriter().value("a\uD800b").toString());
+    }
+
+    @Test
+    public void longs_round_trip() throws Exception {
+        long[] values = {0, 1, -1, 9, 10, 99, 100, 101, 999_999_999L, 1_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE,
+                Long.MIN_VALUE + 1};
+        for (long value : values) {
+            String json = new JsonWriter().value(value).toString();
+            assertEquals(Long.toString(value), json);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertEquals(Long.toString(value), new JsonWriter().value(value).toString());
+        }
+    }
+
+    @Test
+    public void doubles_round_trip_with_shortest_digits() throws Exception {
+        assertEquals("0", format(0.0));
+        assertEquals("-0", format(-0.0));
+        assertEquals("1", format(1.0));
+        assertEquals("-2.5", format(-2.5));
+        assertEquals("0.1", format(0.1));
+        assertEquals("0.000001", format(1e-6));
+        assertEquals("1e-7", format(1e-7));
+        assertEquals("123456789012345680000", format(1.2345678901234568e20));
+        assertEquals("1e22", format(1e22));
+        assertEquals("4.9e-324", format(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157e308", format(Double.MAX_VALUE));
+        assertEquals("2.2250738585072014e-308", format(Double.MIN_NORMAL));
+        assertEquals("9007199254740992", format(9007199254740992.0));
+        assertEquals("2e-323", format(2e-323));
+
+        Random random = new Random(11);
+        JsonWriter writer = new JsonWriter();
+        for (int i = 0; i < 200_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            writer.reset().value(value);
+            String json = writer.toString();
+            char[] chars = json.toCharArray();
+            assertEquals(value, NumberParser.parseDouble(chars, 0, chars.length), json);
+            assertTrue(significantDigits(json) <= significantDigits(Double.toString(value)), json);
+        }
+    }
+
+    @Test
+    public void streams_and_binds_back() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(bytes, 16)) {
+            writer.beginArray();
+            for (int i = 0; i < 100; i++) {
+                writer.beginObject().name(ID).value(i).name("label").value("item €" + i).name("price").value(i * 0.1)
+                        .name("tags").beginArray().value("a").value("b").endArray().endObject();
+            }
+            writer.endArray();
+        }
+        Item[] items = new JsonBinder().read(new String(bytes.toByteArray(), StandardCharsets.UTF_8), Item[].class);
+        assertEquals(100, items.length);
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(i, items[i].id);
+            assertEquals("item €" + i, items[i].label);
+            assertEquals(i * 0.1, items[i].price);
+            assertEquals(2, items[i].tags.size());
+        }
+    }
+
+    private static String format(double value) throws Exception {
+        return new JsonWriter().value(value).toString();
+    }
+
+    private static int significantDigits(String number) {
+        int e = number.indexOf('e') >= 0 ? number.indexOf('e') : number.indexOf('E');
+        String mantissa = (e >= 0 ? number.substring(0, e) : number).replace("-", "").replace(".", "");
+        mantissa = mantissa.replaceAll("^0+", "").replaceAll("0+$", "");
+        return mantissa.length();
+    }
+}
@@ -0,0 +1,90 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LexerFactoryTest {
+
+    @Test
+    public void lexer_is_reused_per_thread() throws Exception {
+        LexerFactory factory = new LexerFactory();
+        Lexer first = factory.lexer("{\"a\": 1}");
+        first.parse();
+        Lexer second = factory.lexer("[true]");
+        assertSame(first, second);
+        second.parse();
+        assertEquals(3, second.getTokens().size());
+        assertEquals(Lexer.Type.TRUE, second.getTokens().type(1));
+    }
+
+    @Test
+    public void lexer_is_dropped_when_grown_too_large() throws Exception {
+        LexerFactory factory = new LexerFactory(Lexer.DEFAULT_MAX_DEPTH, 16, 64, 4);
+        Lexer small = factory.lexer("[1]");
+        StringBuilder large = new StringBuilder("[0");
+        for (int i = 1; i < 100; i++) large.append(',').append(i);
+        Lexer oneOff = factory.lexer(large.append(']').toString());
+        assertNotSame(small, oneOff);
+        oneOff.parse();
+        assertEquals(201, oneOff.getTokens().size());
+        assertSame(small, factory.lexer("[1]"));
+
+        // doubling the buffer for a document within the limit still grows it past the limit
+        assertSame(small, factory.lexer("[" + repeat(' ', 38) + "]"));
+        assertSame(small, factory.lexer("[" + repeat(' ', 48) + "]"));
+        assertNotSame(small, factory.lexer("[1]"));
+
+        Lexer pooled = factory.acquire(large.toString());
+        factory.release(pooled);
+        assertNotSame(pooled, factory.acquire("[1]"));
+    }
+
+    @Test
+    public void clear_drops_the_thread_lexer() {
+        LexerFactory factory = new LexerFactory();
+        Lexer first = factory.lexer("[1]");
+        factory.clear();
+        assertNotSame(first, factory.lexer("[1]"));
+    }
+
+    @Test
+    public void pool_is_shared_between_threads() throws Exception {
+        LexerFactory factory = new LexerFactory();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int id = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String json = "{\"thread\": " + id + ", \"i\": [" + i + ", \"" + i + "\"]}";
+                        Lexer lexer = i % 2 == 0 ? factory.acquire(json) : factory.lexer(json);
+                        lexer.parse();
+                        TokenStore tokens = lexer.getTokens();
+                        assertEquals(String.valueOf(id), tokens.text(3));
+                        assertEquals(String.valueOf(i), tokens.text(8));
+                        assertEquals(String.valueOf(i), tokens.text(10));
+                        if (i % 2 == 0) factory.release(lexer);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) result.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String repeat(char c, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) builder.append(c);
+        return builder.toString();
+    }
+}
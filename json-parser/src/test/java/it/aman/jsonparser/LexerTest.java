@@ -0,0 +1,133 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LexerTest {
+
+    @Test
+    public void parse_valid_objects() throws Exception {
+        new Lexer(read("/tests/step1/valid.json")).parseObject();
+        new Lexer(read("/tests/step2/valid.json")).parseObject();
+        new Lexer(read("/tests/step2/valid2.json")).parseObject();
+        new Lexer(read("/tests/step3/valid.json")).parseObject();
+        new Lexer(read("/tests/step4/valid.json")).parseObject();
+        new Lexer(read("/tests/step4/valid2.json")).parseObject();
+    }
+
+    @Test
+    public void parse_valid_array() throws Exception {
+        new Lexer(read("/tests/step4/valid3.json").trim()).parseArray();
+    }
+
+    @Test
+    public void parse_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new Lexer(read("/tests/step1/invalid.json")));
+        assertThrows(Exception.class, () -> new Lexer(read("/tests/step2/invalid.json")).parseObject());
+        assertThrows(Exception.class, () -> new Lexer(read("/tests/step2/invalid2.json")).parseObject());
+        assertThrows(Exception.class, () -> new Lexer(read("/tests/step3/invalid.json")).parseObject());
+        assertThrows(Exception.class, () -> new Lexer(read("/tests/step4/invalid.json")).parseObject());
+    }
+
+    @Test
+    public void parse_unterminated_key() {
+        assertThrows(Exception.class, () -> new Lexer("{\"key").parseObject());
+    }
+
+    @Test
+    public void parse_deep_nesting_without_recursion() throws Exception {
+        int depth = 100_000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) json.append(i % 2 == 0 ? "[" : "{\"k\":");
+        json.append("1");
+        for (int i = depth - 1; i >= 0; i--) json.append(i % 2 == 0 ? "]" : "}");
+
+        Lexer lexer = new Lexer(json.toString(), depth);
+        lexer.parse();
+        assertEquals(Lexer.Type.NUMBER, lexer.getTokens().type(depth + depth / 2 * 2)); // after the keys and colons
+
+        ParseException e = assertThrows(ParseException.class, () -> new Lexer(json.toString()).parse());
+        int opened = Lexer.DEFAULT_MAX_DEPTH;
+        assertEquals(opened / 2 * 6 + (opened % 2 == 0 ? 0 : 1), e.getErrorOffset());
+    }
+
+    @Test
+    public void parse_rejects_missing_separators() {
+        assertThrows(ParseException.class, () -> new Lexer("[1 2]").parse());
+        assertThrows(ParseException.class, () -> new Lexer("[,1]").parse());
+        assertThrows(ParseException.class, () -> new Lexer("{\"a\":1 \"b\":2}").parse());
+        assertThrows(ParseException.class, () -> new Lexer("[1,]").parse());
+        assertThrows(ParseException.class, () -> new Lexer("[1}").parse());
+    }
+
+    @Test
+    public void parse_reports_error_position() {
+        JsonParseException e = assertThrows(JsonParseException.class,
+                () -> new Lexer("{\n  \"a\": 1,\n  \"b\": tru\n}").parse());
+        assertEquals("Wrong value: tru vs true", e.getReason());
+        assertEquals(3, e.getLine());
+        assertEquals(8, e.getColumn());
+        assertEquals(19, e.getOffset());
+        assertEquals("{\n  \"a\": 1,\n  \"b\": tru\n}", e.getContext().toString());
+
+        // every kind of error has the same type
+        assertThrows(JsonParseException.class, () -> new Lexer("[1.]").parse());
+        assertThrows(JsonParseException.class, () -> new Lexer("[\"open").parse());
+        assertThrows(JsonParseException.class, () -> new Lexer("{\"a\" 1}").parse());
+    }
+
+    @Test
+    public void reset_reuses_lexer() throws Exception {
+        Lexer lexer = new Lexer("{\"a\": [1, 2, 3], \"b\": \"longer text\"}");
+        lexer.parse();
+        assertThrows(JsonParseException.class, () -> lexer.reset("[1,").parse());
+
+        lexer.reset("[\"x\", null]").parse();
+        TokenStore tokens = lexer.getTokens();
+        assertEquals(5, tokens.size());
+        assertEquals("x", tokens.text(1));
+        assertEquals(Lexer.Type.NULL, tokens.type(3));
+
+        char[] buffer = " [1] {\"k\": 2} ".toCharArray();
+        lexer.reset(buffer, 5, 8).parseObject();
+        assertEquals("k", lexer.getTokens().text(1));
+        assertEquals(7, lexer.getTokens().start(1)); // after the quote
+    }
+
+    @Test
+    public void parse_emits_tokens() throws Exception {
+        Lexer lexer = new Lexer("{\"a\": [1, \"b\"], \"c\": true}");
+        lexer.parseObject();
+        TokenStore tokens = lexer.getTokens();
+        Lexer.Type[] expected = {Lexer.Type.BEGIN_OBJECT, Lexer.Type.STRING, Lexer.Type.COLON, Lexer.Type.BEGIN_ARRAY,
+                Lexer.Type.NUMBER, Lexer.Type.COMMA, Lexer.Type.STRING, Lexer.Type.CLOSE_ARRAY, Lexer.Type.COMMA,
+                Lexer.Type.STRING, Lexer.Type.COLON, Lexer.Type.TRUE, Lexer.Type.CLOSE_OBJECT};
+        assertEquals(expected.length, tokens.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], tokens.type(i));
+        }
+        assertEquals("a", tokens.text(1));
+        assertEquals("1", tokens.text(4));
+        assertEquals("b", lexer.getTokenList().get(6).getText());
+        assertEquals(Lexer.Type.TRUE, lexer.getTokenList().get(11).getType());
+    }
+
+    static String read(String resource) throws IOException {
+        try (InputStream in = LexerTest.class.getResourceAsStream(resource);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            StringBuilder builder = new StringBuilder();
+            char[] chunk = new char[1024];
+            int n;
+            while ((n = reader.read(chunk)) != -1) builder.append(chunk, 0, n);
+            return builder.toString();
+        }
+    }
+}
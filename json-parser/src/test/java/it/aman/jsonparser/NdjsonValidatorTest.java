@@ -0,0 +1,82 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonValidatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void validate_reports_invalid_lines() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 500; i++) {
+            if (i % 100 == 0) content.append("{\"id\": ").append(i).append(",}\n");
+            else if (i % 77 == 0) content.append('\n');
+            else content.append("{\"id\": ").append(i).append(", \"tags\": [\"a\", \"b\"]}\n");
+        }
+        content.append("[\"last line without newline\"]");
+        Path file = Files.write(dir.resolve("records.ndjson"), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (int chunkSize : new int[]{7, 64, 1000, NdjsonValidator.DEFAULT_CHUNK_SIZE}) {
+            NdjsonValidator.Summary summary = new NdjsonValidator(ForkJoinPool.commonPool(), chunkSize, 3).validate(file);
+            assertEquals(501, summary.getLines());
+            assertEquals(495, summary.getRecords());
+            assertEquals(5, summary.getInvalid());
+            assertEquals(3, summary.getErrors().size());
+            assertEquals(100, summary.getErrors().get(0).getLine());
+            assertEquals(200, summary.getErrors().get(1).getLine());
+            assertEquals(300, summary.getErrors().get(2).getLine());
+        }
+    }
+
+    @Test
+    public void validate_fail_fast_stops_at_first_invalid_record() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            if (i == 120 || i == 250) content.append("{\"id\": ").append(i).append(" \"x\": 1}\n");
+            else content.append("{\"id\": ").append(i).append("}\n");
+        }
+        Path file = Files.write(dir.resolve("records.ndjson"), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (int chunkSize : new int[]{7, 64, 1000, NdjsonValidator.DEFAULT_CHUNK_SIZE}) {
+            NdjsonValidator.Summary summary =
+                    new NdjsonValidator(ForkJoinPool.commonPool(), chunkSize, 10, true).validate(file);
+            assertEquals(120, summary.getLines());
+            assertEquals(1, summary.getInvalid());
+            assertEquals(1, summary.getErrors().size());
+            assertEquals(120, summary.getErrors().get(0).getLine());
+            assertEquals(12, summary.getErrors().get(0).getColumn());
+            assertEquals("Expected ',' or closing bracket", summary.getErrors().get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void validate_reports_too_deep_lines_as_invalid() throws Exception {
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i <= Lexer.DEFAULT_MAX_DEPTH; i++) deep.append('[');
+        for (int i = 0; i <= Lexer.DEFAULT_MAX_DEPTH; i++) deep.append(']');
+        String content = "{\"id\": 1}\n" + deep + "\n{\"id\": 3}\n";
+        Path file = Files.write(dir.resolve("deep.ndjson"), content.getBytes(StandardCharsets.UTF_8));
+        NdjsonValidator.Summary summary = new NdjsonValidator().validate(file);
+        assertEquals(3, summary.getRecords());
+        assertEquals(1, summary.getInvalid());
+        assertEquals(2, summary.getErrors().get(0).getLine());
+    }
+
+    @Test
+    public void validate_empty_file() throws Exception {
+        Path file = Files.write(dir.resolve("empty.ndjson"), new byte[0]);
+        NdjsonValidator.Summary summary = new NdjsonValidator().validate(file);
+        assertEquals(0, summary.getLines());
+        assertEquals(0, summary.getRecords());
+    }
+}
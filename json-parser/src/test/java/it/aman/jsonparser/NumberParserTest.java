@@ -0,0 +1,88 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NumberParserTest {
+
+    @Test
+    public void scan_follows_grammar() {
+        assertScan("0", 1);
+        assertScan("-0", 2);
+        assertScan("12.5e-3,", 7);
+        assertScan("1E+2]", 4);
+        assertScan("01", 1);
+        assertScan("-", -1);
+        assertScan("1.", -1);
+        assertScan(".5", -1);
+        assertScan("1e", -1);
+        assertScan("1e+", -1);
+    }
+
+    @Test
+    public void parseLong_handles_limits() {
+        assertEquals(0, parseLong("0"));
+        assertEquals(-42, parseLong("-42"));
+        assertEquals(Long.MAX_VALUE, parseLong("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, parseLong("-9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> parseLong("9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> parseLong("1.5"));
+        assertThrows(NumberFormatException.class, () -> parseLong("-"));
+    }
+
+    @Test
+    public void parseDouble_matches_jdk() {
+        String[] samples = {"0", "-0", "1", "0.1", "3.141592653589793", "1e23", "8.98846567431158e307", "1.7976931348623157e308",
+                "1.7976931348623159e308", "4.9e-324", "2.4703282292062327e-324", "2.2250738585072011e-308", "1e-400",
+                "1e400", "9007199254740993", "123456789012345678901234567890", "0.000000000000000000000000000001234",
+                "2.2250738585072014E-308", "7.038531e-26", "5e-324", "1.00000005960464477550", "18446744073709551615"};
+        for (String sample : samples) {
+            assertEquals(Double.parseDouble(sample), parseDouble(sample), sample);
+        }
+    }
+
+    @Test
+    public void parseDouble_round_trips_random_values() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            double expected = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(expected) || Double.isInfinite(expected)) continue;
+            String text = Double.toString(expected);
+            assertEquals(expected, parseDouble(text), text);
+        }
+        for (int i = 0; i < 200_000; i++) {
+            String text = randomDecimal(random);
+            assertEquals(Double.parseDouble(text), parseDouble(text), text);
+        }
+    }
+
+    private static String randomDecimal(Random random) {
+        StringBuilder builder = new StringBuilder();
+        if (random.nextBoolean()) builder.append('-');
+        builder.append(random.nextInt(9) + 1);
+        int digits = random.nextInt(20);
+        for (int i = 0; i < digits; i++) builder.append(random.nextInt(10));
+        if (random.nextBoolean()) {
+            builder.append('.');
+            int fraction = 1 + random.nextInt(10);
+            for (int i = 0; i < fraction; i++) builder.append(random.nextInt(10));
+        }
+        if (random.nextBoolean()) builder.append('e').append(random.nextInt(660) - 340);
+        return builder.toString();
+    }
+
+    private static void assertScan(String text, int expected) {
+        assertEquals(expected, NumberParser.scan(text.toCharArray(), 0, text.length()), text);
+    }
+
+    private static long parseLong(String text) {
+        return NumberParser.parseLong(text.toCharArray(), 0, text.length());
+    }
+
+    private static double parseDouble(String text) {
+        return NumberParser.parseDouble(text.toCharArray(), 0, text.length());
+    }
+}
@@ -0,0 +1,104 @@
+package it.aman.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StructuralValidatorTest {
+
+    private final StructuralValidator validator = new StructuralValidator();
+
+    @Test
+    public void validate_fixtures() throws Exception {
+        for (String fixture : new String[]{"/tests/step1/valid.json", "/tests/step2/valid.json", "/tests/step2/valid2.json",
+                "/tests/step3/valid.json", "/tests/step4/valid.json", "/tests/step4/valid2.json", "/tests/step4/valid3.json"}) {
+            validator.validate(bytes(LexerTest.read(fixture)));
+        }
+        for (String fixture : new String[]{"/tests/step1/invalid.json", "/tests/step2/invalid.json", "/tests/step2/invalid2.json",
+                "/tests/step3/invalid.json", "/tests/step4/invalid.json"}) {
+            assertInvalid(LexerTest.read(fixture));
+        }
+    }
+
+    @Test
+    public void index_finds_structurals_outside_strings() throws Exception {
+        StructuralIndex index = new StructuralIndex();
+        byte[] json = bytes("{\"a,\\\"]\": [12, true]}");
+        index.build(json, 0, json.length);
+        StringBuilder found = new StringBuilder();
+        for (int i = 0; i < index.size(); i++) found.append((char) json[index.get(i)]);
+        assertEquals("{\"\":[1,t]}", found.toString());
+    }
+
+    @Test
+    public void validate_escapes_across_blocks() throws Exception {
+        for (int padding = 0; padding < 2 * StructuralIndex.BLOCK_SIZE; padding++) {
+            StringBuilder json = new StringBuilder("[\"");
+            for (int i = 0; i < padding; i++) json.append('x');
+            json.append("\\\\\\\"\\\\\", {\"k\": -1.5e+3}, null]");
+            validator.validate(bytes(json.toString()));
+        }
+    }
+
+    @Test
+    public void validate_rejects_invalid() {
+        assertInvalid("");
+        assertInvalid("[1 2]");
+        assertInvalid("[01]");
+        assertInvalid("[1.]");
+        assertInvalid("[tru]");
+        assertInvalid("{\"a\" 1}");
+        assertInvalid("{\"a\": 1]");
+        assertInvalid("[\"a\\x\"]");
+        assertInvalid("[\"\\u\uff10\uff10\uff14\uff11\"]");
+        assertInvalid("[\"a\tb\"]");
+        assertInvalid("[\"unterminated]");
+        assertInvalid("{} {}");
+    }
+
+    @Test
+    public void validate_reports_errors_like_the_lexer() {
+        for (String json : new String[]{"[1,]", "[x]", "{\"a\":}", "[1.]", "[-]", "[1.5e+]", "[\u00e9]"}) {
+            JsonParseException expected = assertThrows(JsonParseException.class, () -> JsonValue.parse(json));
+            JsonParseException e = assertThrows(JsonParseException.class, () -> validator.validate(bytes(json)));
+            assertEquals(expected.getReason(), e.getReason(), json);
+            assertEquals(expected.getColumn(), e.getColumn(), json);
+        }
+        JsonParseException e = assertThrows(JsonParseException.class, () -> validator.validate(bytes("[1,\u000b]")));
+        assertEquals("Unexpected character '\u000b'", e.getReason());
+    }
+
+    @Test
+    public void validate_reports_error_position() {
+        byte[] input = bytes("xx[1,\n 2,\n 3 4]");
+        JsonParseException e = assertThrows(JsonParseException.class, () -> validator.validate(input, 2, input.length - 2));
+        assertEquals("Expected ',' or closing bracket", e.getReason());
+        assertEquals(3, e.getLine());
+        assertEquals(4, e.getColumn());
+        assertEquals(input.length - 2, e.getOffset());
+        assertEquals("[1,\n 2,\n 3 4]", e.getContext().toString());
+    }
+
+    @Test
+    public void validate_rejects_nesting_past_max_depth() throws Exception {
+        StructuralValidator shallow = new StructuralValidator(3);
+        shallow.validate(bytes("[{\"a\": [1]}]"));
+        JsonParseException e = assertThrows(JsonParseException.class, () -> shallow.validate(bytes("[{\"a\": [[1]]}]")));
+        assertEquals(8, e.getOffset());
+
+        StringBuilder hostile = new StringBuilder();
+        for (int i = 0; i <= Lexer.DEFAULT_MAX_DEPTH; i++) hostile.append('[');
+        assertInvalid(hostile.toString());
+    }
+
+    private void assertInvalid(String json) {
+        assertThrows(ParseException.class, () -> validator.validate(bytes(json)), json);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}